@@ -16,4 +16,9 @@ dependencies {
 
 tasks.test {
     useJUnitPlatform()
-}
\ No newline at end of file
+}
+tasks.register<JavaExec>("benchmark") {
+    description = "Runs the interpreter benchmark corpus."
+    classpath = sourceSets["test"].runtimeClasspath
+    mainClass.set("plc.project.Benchmarks")
+}
@@ -4,13 +4,24 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public final class Analyzer implements Ast.Visitor<Void> {
 
+    static final int GLOBAL_DEPTH = 0;
+    static final int LOCAL_DEPTH = 1;
+
     public Scope scope;
     private Ast.Function function;
+    private final Map<Environment.Variable, int[]> slots = new IdentityHashMap<>();
+    private final FunctionTable functionTable = new FunctionTable();
+    private int globalCount = 0;
+    private int localCount = 0;
+    private int frameSize = 0;
 
     public Analyzer(Scope parent) {
         scope = new Scope(parent);
@@ -28,6 +39,8 @@ public final class Analyzer implements Ast.Visitor<Void> {
         if (!scope.lookupFunction("main", 0).getReturnType().equals(Environment.Type.INTEGER)) {
             throw new RuntimeException("error");
         }
+        ast.setFunctionTable(functionTable);
+        new EffectAnalyzer().visit(ast);
 
         return null;
     }
@@ -43,6 +56,8 @@ public final class Analyzer implements Ast.Visitor<Void> {
         }
         scope.defineVariable(ast.getName(), ast.getName(), Environment.getType(ast.getTypeName()), ast.getMutable(), Environment.NIL);
         ast.setVariable(scope.lookupVariable(ast.getName()));
+        ast.setSlot(globalCount);
+        slots.put(ast.getVariable(), new int[] {GLOBAL_DEPTH, globalCount++});
 
         return null;
     }
@@ -56,12 +71,17 @@ public final class Analyzer implements Ast.Visitor<Void> {
         scope.defineFunction(ast.getName(), ast.getName(), current, Environment.getType(ast.getReturnTypeName().orElse("Nil")), args -> Environment.NIL);
         function = ast;
         function.setFunction(scope.lookupFunction(ast.getName(), ast.getParameters().size()));
+        function.setSlot(functionTable.bind(FunctionTable.Signature.of(ast.getName(), ast.getParameters().size())));
         scope = new Scope(scope);
+        localCount = ast.getParameters().size();
+        frameSize = localCount;
 
         for (int index = 0; index < ast.getParameters().size(); index++) {
-            scope.defineVariable(ast.getParameters().get(index), ast.getParameters().get(index), Environment.getType(ast.getParameterTypeNames().get(index)), true, Environment.NIL);
+            Environment.Variable parameter = scope.defineVariable(ast.getParameters().get(index), ast.getParameters().get(index), Environment.getType(ast.getParameterTypeNames().get(index)), true, Environment.NIL);
+            slots.put(parameter, new int[] {LOCAL_DEPTH, index});
         }
         ast.getStatements().forEach(this::visit);
+        ast.setFrameSize(frameSize);
         scope = scope.getParent();
         function = null;
 
@@ -104,6 +124,11 @@ public final class Analyzer implements Ast.Visitor<Void> {
 
         Environment.Variable variable = scope.defineVariable(ast.getName(), ast.getName(), current, true, Environment.NIL);
         ast.setVariable(variable);
+        if (function != null) {
+            ast.setSlot(LOCAL_DEPTH, localCount);
+            slots.put(variable, new int[] {LOCAL_DEPTH, localCount++});
+            frameSize = Math.max(frameSize, localCount);
+        }
 
         return null;
     }
@@ -129,6 +154,7 @@ public final class Analyzer implements Ast.Visitor<Void> {
         if (ast.getThenStatements().isEmpty()) {
             throw new RuntimeException("ThenStatements list cannot be empty");
         }
+        int locals = localCount;
         try {
             scope = new Scope(scope);
             for (Ast.Statement stmt : ast.getThenStatements()) {
@@ -136,6 +162,7 @@ public final class Analyzer implements Ast.Visitor<Void> {
             }
         } finally {
             scope = scope.getParent();
+            localCount = locals;
         }
         try {
             scope = new Scope(scope);
@@ -144,6 +171,7 @@ public final class Analyzer implements Ast.Visitor<Void> {
             }
         } finally {
             scope = scope.getParent();
+            localCount = locals;
         }
         return null;
     }
@@ -167,9 +195,26 @@ public final class Analyzer implements Ast.Visitor<Void> {
             }
 
         }
+        ast.setTable(table(cases));
         return null;
     }
 
+    /**
+     * Maps each literal case value to the index of the first case with that
+     * value, so that a switch over literals dispatches with one lookup.
+     * Returns null if any case value is not a literal.
+     */
+    private static Map<Object, Integer> table(List<Ast.Statement.Case> cases) {
+        Map<Object, Integer> table = new HashMap<>();
+        for (int i = 0; i < cases.size() - 1; i++) {
+            if (!(cases.get(i).getValue().orElse(null) instanceof Ast.Expression.Literal literal) || literal.getLiteral() == null) {
+                return null;
+            }
+            table.putIfAbsent(literal.getLiteral(), i);
+        }
+        return table;
+    }
+
     @Override
     public Void visit(Ast.Statement.Case ast) {
         Optional<Ast.Expression> optional = ast.getValue();
@@ -177,6 +222,7 @@ public final class Analyzer implements Ast.Visitor<Void> {
             Ast.Expression expression = optional.get();
             visit(expression);
         }
+        int locals = localCount;
         try {
             scope = new Scope(scope);
             for (Ast.Statement stmt : ast.getStatements()) {
@@ -184,6 +230,7 @@ public final class Analyzer implements Ast.Visitor<Void> {
             }
         } finally {
             scope = scope.getParent();
+            localCount = locals;
         }
         return null;
     }
@@ -192,6 +239,7 @@ public final class Analyzer implements Ast.Visitor<Void> {
     public Void visit(Ast.Statement.While ast) {
         visit(ast.getCondition());
         requireAssignable(Environment.Type.BOOLEAN, ast.getCondition().getType());
+        int locals = localCount;
         try {
             scope = new Scope(scope);
             for (Ast.Statement stmt : ast.getStatements()) {
@@ -199,6 +247,7 @@ public final class Analyzer implements Ast.Visitor<Void> {
             }
         } finally {
             scope = scope.getParent();
+            localCount = locals;
         }
         return null;
     }
@@ -217,6 +266,7 @@ public final class Analyzer implements Ast.Visitor<Void> {
         if (!daGoal.equals(current)) {
             throw new RuntimeException("ERROR");
         }
+        ast.setTail(ast.getValue() instanceof Ast.Expression.Function call && call.getSlot() == function.getSlot());
 
         return null;
     }
@@ -348,6 +398,10 @@ public final class Analyzer implements Ast.Visitor<Void> {
         }
         Environment.Variable variable = scope.lookupVariable(name);
         ast.setVariable(variable);
+        int[] coordinate = slots.get(variable);
+        if (coordinate != null) {
+            ast.setSlot(coordinate[0], coordinate[1]);
+        }
         return null;
     }
 
@@ -355,8 +409,10 @@ public final class Analyzer implements Ast.Visitor<Void> {
     public Void visit(Ast.Expression.Function ast) {
         String name = ast.getName();
         List<Ast.Expression> listArgs = ast.getArguments();
-        Environment.Function function = scope.lookupFunction(name, listArgs.size());
+        FunctionTable.Signature signature = FunctionTable.Signature.of(name, listArgs.size());
+        Environment.Function function = scope.lookupFunction(signature);
         ast.setFunction(function);
+        ast.setSlot(functionTable.bind(signature));
 
         List<Environment.Type> listParameterTypes = function.getParameterTypes();
         for (int i = 0; i < listParameterTypes.size(); i++) {
@@ -2,6 +2,7 @@ package plc.project;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -11,6 +12,7 @@ public abstract class Ast {
 
         private final List<Global> globals;
         private final List<Ast.Function> functions;
+        private FunctionTable functionTable = null;
 
         public Source(List<Global> globals, List<Ast.Function> functions) {
             this.globals = globals;
@@ -25,6 +27,14 @@ public abstract class Ast {
             return functions;
         }
 
+        public FunctionTable getFunctionTable() {
+            return functionTable;
+        }
+
+        public void setFunctionTable(FunctionTable functionTable) {
+            this.functionTable = functionTable;
+        }
+
         @Override
         public boolean equals(Object obj) {
             return obj instanceof Source &&
@@ -48,6 +58,7 @@ public abstract class Ast {
         private final boolean mutable;
         private final Optional<Ast.Expression> value;
         private Environment.Variable variable = null;
+        private int slot = -1;
 
         public Global(String name, boolean mutable, Optional<Expression> value) {
             this(name, "Any", mutable, value);
@@ -87,6 +98,14 @@ public abstract class Ast {
             this.variable = variable;
         }
 
+        public int getSlot() {
+            return slot;
+        }
+
+        public void setSlot(int slot) {
+            this.slot = slot;
+        }
+
         @Override
         public boolean equals(Object obj) {
             return obj instanceof Global &&
@@ -117,6 +136,9 @@ public abstract class Ast {
         private final Optional<String> returnTypeName;
         private final List<Statement> statements;
         private Environment.Function function = null;
+        private int slot = -1;
+        private int frameSize = -1;
+        private boolean pure = false;
         
         public Function(String name, List<String> parameters, List<Statement> statements) {
             this(name, parameters, new ArrayList<>(), Optional.of("Any"), statements);
@@ -165,6 +187,30 @@ public abstract class Ast {
             this.function = function;
         }
 
+        public int getSlot() {
+            return slot;
+        }
+
+        public void setSlot(int slot) {
+            this.slot = slot;
+        }
+
+        public int getFrameSize() {
+            return frameSize;
+        }
+
+        public void setFrameSize(int frameSize) {
+            this.frameSize = frameSize;
+        }
+
+        public boolean isPure() {
+            return pure;
+        }
+
+        public void setPure(boolean pure) {
+            this.pure = pure;
+        }
+
         @Override
         public boolean equals(Object obj) {
             return obj instanceof Ast.Function &&
@@ -224,6 +270,8 @@ public abstract class Ast {
             private final Optional<String> typeName;
             private Optional<Ast.Expression> value;
             private Environment.Variable variable = null;
+            private int depth = -1;
+            private int slot = -1;
 
             public Declaration(String name, Optional<Ast.Expression> value) {
                 this(name, Optional.empty(), value);
@@ -257,6 +305,19 @@ public abstract class Ast {
             public void setVariable(Environment.Variable variable) {
                 this.variable = variable;
             }
+
+            public int getDepth() {
+                return depth;
+            }
+
+            public int getSlot() {
+                return slot;
+            }
+
+            public void setSlot(int depth, int slot) {
+                this.depth = depth;
+                this.slot = slot;
+            }
             
             
             @Override
@@ -363,6 +424,7 @@ public abstract class Ast {
 
             private final Ast.Expression condition;
             private final List<Ast.Statement.Case> cases;
+            private Map<Object, Integer> table = null;
 
             public Switch(Ast.Expression condition, List<Ast.Statement.Case> cases) {
                 this.condition = condition;
@@ -375,6 +437,19 @@ public abstract class Ast {
 
             public List<Ast.Statement.Case> getCases() { return cases; }
 
+            /**
+             * Returns the index of the first case for each literal case value,
+             * or null if some case value is not a literal. Values missing
+             * from the table select the last case, which is the default.
+             */
+            public Map<Object, Integer> getTable() {
+                return table;
+            }
+
+            public void setTable(Map<Object, Integer> table) {
+                this.table = table;
+            }
+
             @Override
             public boolean equals(Object obj) {
                 return obj instanceof Switch &&
@@ -465,6 +540,7 @@ public abstract class Ast {
         public static final class Return extends Statement {
 
             private final Ast.Expression value;
+            private boolean tail = false;
 
             public Return(Ast.Expression value) {
                 this.value = value;
@@ -474,6 +550,18 @@ public abstract class Ast {
                 return value;
             }
 
+            /**
+             * Returns whether the value is a call to the enclosing function,
+             * which engines may run without growing the stack.
+             */
+            public boolean isTail() {
+                return tail;
+            }
+
+            public void setTail(boolean tail) {
+                this.tail = tail;
+            }
+
             @Override
             public boolean equals(Object obj) {
                 return obj instanceof Return &&
@@ -646,6 +734,8 @@ public abstract class Ast {
             private final Optional<Ast.Expression> offset;
             private final String name;
             private Environment.Variable variable = null;
+            private int depth = -1;
+            private int slot = -1;
 
             public Access(Optional<Ast.Expression> offset, String name) {
                 this.offset = offset;
@@ -671,6 +761,19 @@ public abstract class Ast {
                 this.variable = variable;
             }
 
+            public int getDepth() {
+                return depth;
+            }
+
+            public int getSlot() {
+                return slot;
+            }
+
+            public void setSlot(int depth, int slot) {
+                this.depth = depth;
+                this.slot = slot;
+            }
+
             @Override
             public Environment.Type getType() {
                 return getVariable().getType();
@@ -701,6 +804,7 @@ public abstract class Ast {
             private final String name;
             private final List<Ast.Expression> arguments;
             private Environment.Function function = null;
+            private int slot = -1;
 
             public Function(String name, List<Ast.Expression> arguments) {
                 this.name = name;
@@ -726,6 +830,14 @@ public abstract class Ast {
                 this.function = function;
             }
 
+            public int getSlot() {
+                return slot;
+            }
+
+            public void setSlot(int slot) {
+                this.slot = slot;
+            }
+
             @Override
             public Environment.Type getType() {
                 return getFunction().getReturnType();
@@ -771,6 +883,13 @@ public abstract class Ast {
                 return type;
             }
 
+            /**
+             * Returns whether the element type has been set by the analyzer.
+             */
+            public boolean hasType() {
+                return type != null;
+            }
+
             public void setType(Environment.Type type) {
                 this.type = type;
             }
@@ -0,0 +1,251 @@
+package plc.project;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A compiled program for the {@link VirtualMachine}. Each function is a
+ * {@link Chunk} of register-based instructions, encoded as three ints: the
+ * opcode in the low 8 bits of the first int with operand A in the upper 24
+ * bits, followed by operands B and C. Chunks are indexed by the function
+ * table slots assigned by the {@link Analyzer}; chunks without code are
+ * natives, which the machine links by signature. Globals are the source's
+ * globals followed by the host variables it uses, which the machine links by
+ * name.
+ */
+public final class Bytecode {
+
+    /** {@code R[A] = constants[B]} */
+    public static final int CONST = 0;
+    /** {@code R[A] = R[B]} */
+    public static final int MOVE = 1;
+    /** {@code R[A] = globals[B]} */
+    public static final int LOAD_GLOBAL = 2;
+    /** {@code globals[B] = R[A]} */
+    public static final int STORE_GLOBAL = 3;
+    /** {@code R[A] = R[B][R[C]]} */
+    public static final int LOAD_INDEX = 4;
+    /** {@code R[A][R[B]] = R[C]} */
+    public static final int STORE_INDEX = 5;
+    /** {@code R[A] = R[B] + R[C]}, also concatenating Strings */
+    public static final int ADD = 6;
+    /** {@code R[A] = R[B] - R[C]} */
+    public static final int SUB = 7;
+    /** {@code R[A] = R[B] * R[C]} */
+    public static final int MUL = 8;
+    /** {@code R[A] = R[B] / R[C]} */
+    public static final int DIV = 9;
+    /** {@code R[A] = R[B] ^ R[C]} */
+    public static final int POW = 10;
+    /** {@code R[A] = R[B] < R[C]} */
+    public static final int LT = 11;
+    /** {@code R[A] = R[B] > R[C]} */
+    public static final int GT = 12;
+    /** {@code R[A] = R[B] == R[C]} */
+    public static final int EQ = 13;
+    /** {@code R[A] = R[B] != R[C]} */
+    public static final int NE = 14;
+    /** Fails unless {@code R[A]} is a Boolean. */
+    public static final int TEST = 15;
+    /** {@code pc = B} */
+    public static final int JUMP = 16;
+    /** {@code if (!R[A]) pc = B}, failing unless {@code R[A]} is a Boolean */
+    public static final int JUMP_FALSE = 17;
+    /** {@code R[A] = chunks[B](R[C], ..., R[C + arity - 1])} */
+    public static final int CALL = 18;
+    /** {@code R[A] = [R[B], ..., R[B + C - 1]]} */
+    public static final int LIST = 19;
+    /** Returns {@code R[A]} from the current chunk. */
+    public static final int RETURN = 20;
+
+    private static final int MAGIC = 0x53594E42;
+    private static final int VERSION = 2;
+
+    private final List<Global> globals;
+    private final List<Object> constants;
+    private final List<Chunk> chunks;
+    private final Chunk initializer;
+
+    public Bytecode(List<Global> globals, List<Object> constants, List<Chunk> chunks, Chunk initializer) {
+        this.globals = globals;
+        this.constants = constants;
+        this.chunks = chunks;
+        this.initializer = initializer;
+    }
+
+    public List<Global> getGlobals() {
+        return globals;
+    }
+
+    /**
+     * Returns the constant pool. Values are the same objects used in
+     * {@link Ast.Expression.Literal}s, with null for {@code NIL}.
+     */
+    public List<Object> getConstants() {
+        return constants;
+    }
+
+    public List<Chunk> getChunks() {
+        return chunks;
+    }
+
+    /**
+     * Returns the chunk that initializes globals, run before {@code main}.
+     */
+    public Chunk getInitializer() {
+        return initializer;
+    }
+
+    /**
+     * A global of the source, or a variable of the host scope when
+     * {@code host} is true.
+     */
+    public record Global(String name, boolean mutable, boolean host) {}
+
+    /**
+     * A function body, or a native when {@code code} is null. Parameters are
+     * passed in the first {@code arity} of {@code registers} registers.
+     */
+    public record Chunk(String name, int arity, int registers, int[] code) {}
+
+    public void write(OutputStream output) throws IOException {
+        DataOutputStream data = new DataOutputStream(output);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(globals.size());
+        for (Global global : globals) {
+            writeString(data, global.name());
+            data.writeBoolean(global.mutable());
+            data.writeBoolean(global.host());
+        }
+        data.writeInt(constants.size());
+        for (Object constant : constants) {
+            writeConstant(data, constant);
+        }
+        data.writeInt(chunks.size());
+        for (Chunk chunk : chunks) {
+            writeChunk(data, chunk);
+        }
+        writeChunk(data, initializer);
+        data.flush();
+    }
+
+    public static Bytecode read(InputStream input) throws IOException {
+        DataInputStream data = new DataInputStream(input);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a bytecode file.");
+        }
+        else if (data.readInt() != VERSION) {
+            throw new IOException("Unsupported bytecode version.");
+        }
+        List<Global> globals = new ArrayList<>();
+        for (int count = data.readInt(); count > 0; count--) {
+            globals.add(new Global(readString(data), data.readBoolean(), data.readBoolean()));
+        }
+        List<Object> constants = new ArrayList<>();
+        for (int count = data.readInt(); count > 0; count--) {
+            constants.add(readConstant(data));
+        }
+        List<Chunk> chunks = new ArrayList<>();
+        for (int count = data.readInt(); count > 0; count--) {
+            chunks.add(readChunk(data));
+        }
+        return new Bytecode(globals, constants, chunks, readChunk(data));
+    }
+
+    private static void writeConstant(DataOutputStream data, Object constant) throws IOException {
+        if (constant == null) {
+            data.writeByte(0);
+        }
+        else if (constant instanceof Boolean bool) {
+            data.writeByte(1);
+            data.writeBoolean(bool);
+        }
+        else if (constant instanceof BigInteger integer) {
+            data.writeByte(2);
+            byte[] bytes = integer.toByteArray();
+            data.writeInt(bytes.length);
+            data.write(bytes);
+        }
+        else if (constant instanceof BigDecimal decimal) {
+            data.writeByte(3);
+            writeString(data, decimal.toString());
+        }
+        else if (constant instanceof Character character) {
+            data.writeByte(4);
+            data.writeChar(character);
+        }
+        else if (constant instanceof String string) {
+            data.writeByte(5);
+            writeString(data, string);
+        }
+        else {
+            throw new IOException("Unsupported constant " + constant + ".");
+        }
+    }
+
+    private static Object readConstant(DataInputStream data) throws IOException {
+        switch (data.readByte()) {
+            case 0:
+                return null;
+            case 1:
+                return data.readBoolean();
+            case 2:
+                byte[] bytes = new byte[data.readInt()];
+                data.readFully(bytes);
+                return new BigInteger(bytes);
+            case 3:
+                return new BigDecimal(readString(data));
+            case 4:
+                return data.readChar();
+            case 5:
+                return readString(data);
+            default:
+                throw new IOException("Invalid constant tag.");
+        }
+    }
+
+    private static void writeChunk(DataOutputStream data, Chunk chunk) throws IOException {
+        writeString(data, chunk.name());
+        data.writeInt(chunk.arity());
+        data.writeInt(chunk.registers());
+        data.writeInt(chunk.code() == null ? -1 : chunk.code().length);
+        if (chunk.code() != null) {
+            for (int word : chunk.code()) {
+                data.writeInt(word);
+            }
+        }
+    }
+
+    private static Chunk readChunk(DataInputStream data) throws IOException {
+        String name = readString(data);
+        int arity = data.readInt();
+        int registers = data.readInt();
+        int length = data.readInt();
+        int[] code = length < 0 ? null : new int[length];
+        for (int index = 0; index < length; index++) {
+            code[index] = data.readInt();
+        }
+        return new Chunk(name, arity, registers, code);
+    }
+
+    private static void writeString(DataOutputStream data, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        data.writeInt(bytes.length);
+        data.write(bytes);
+    }
+
+    private static String readString(DataInputStream data) throws IOException {
+        byte[] bytes = new byte[data.readInt()];
+        data.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
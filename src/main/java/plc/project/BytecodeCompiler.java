@@ -0,0 +1,340 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles an analyzed AST to {@link Bytecode}. Locals keep the frame slots
+ * assigned by the {@link Analyzer} as their registers, so reading a local
+ * needs no instruction; temporaries are allocated above them and released
+ * at the end of each statement.
+ */
+public final class BytecodeCompiler implements Ast.Visitor<Integer> {
+
+    private final List<Bytecode.Global> globals = new ArrayList<>();
+    private final Map<String, Integer> hosts = new HashMap<>();
+    private final List<Object> constants = new ArrayList<>();
+    private final Map<Object, Integer> constantSlots = new HashMap<>();
+    private Bytecode.Chunk[] chunks;
+    private Bytecode.Chunk initializer;
+
+    private int[] code;
+    private int length;
+    private int next;
+    private int registers;
+
+    public Bytecode compile(Ast.Source ast) {
+        visit(ast);
+        return new Bytecode(globals, constants, Arrays.asList(chunks), initializer);
+    }
+
+    @Override
+    public Integer visit(Ast.Source ast) {
+        if (ast.getFunctionTable() == null) {
+            throw new RuntimeException("The bytecode compiler requires an analyzed AST.");
+        }
+        for (Ast.Global global : ast.getGlobals()) {
+            globals.add(new Bytecode.Global(global.getName(), global.getMutable(), false));
+        }
+        begin(0);
+        ast.getGlobals().forEach(this::visit);
+        initializer = end("<globals>", 0);
+
+        chunks = new Bytecode.Chunk[ast.getFunctionTable().size()];
+        ast.getFunctions().forEach(this::visit);
+        for (int slot = 0; slot < chunks.length; slot++) {
+            if (chunks[slot] == null) {
+                FunctionTable.Signature signature = ast.getFunctionTable().getSignature(slot);
+                chunks[slot] = new Bytecode.Chunk(signature.name(), signature.arity(), 0, null);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Integer visit(Ast.Global ast) {
+        int value = ast.getValue().isPresent() ? visit(ast.getValue().get()) : constant(null);
+        emit(Bytecode.STORE_GLOBAL, value, ast.getSlot(), 0);
+        return null;
+    }
+
+    @Override
+    public Integer visit(Ast.Function ast) {
+        begin(ast.getFrameSize());
+        ast.getStatements().forEach(this::statement);
+        chunks[ast.getSlot()] = end(ast.getName(), ast.getParameters().size());
+        return null;
+    }
+
+    private void statement(Ast.Statement ast) {
+        int mark = next;
+        visit(ast);
+        next = mark;
+    }
+
+    @Override
+    public Integer visit(Ast.Statement.Expression ast) {
+        visit(ast.getExpression());
+        return null;
+    }
+
+    @Override
+    public Integer visit(Ast.Statement.Declaration ast) {
+        move(ast.getSlot(), ast.getValue().isPresent() ? visit(ast.getValue().get()) : constant(null));
+        return null;
+    }
+
+    @Override
+    public Integer visit(Ast.Statement.Assignment ast) {
+        Ast.Expression.Access receiver = (Ast.Expression.Access) ast.getReceiver();
+        if (receiver.getDepth() != Analyzer.LOCAL_DEPTH && !globals.get(global(receiver)).mutable()) {
+            throw new RuntimeException("error" + receiver.getName());
+        }
+        int value = visit(ast.getValue());
+        if (receiver.getOffset().isPresent()) {
+            int list = variable(receiver);
+            int offset = visit(receiver.getOffset().get());
+            emit(Bytecode.STORE_INDEX, list, offset, value);
+        }
+        else if (receiver.getDepth() != Analyzer.LOCAL_DEPTH) {
+            emit(Bytecode.STORE_GLOBAL, value, global(receiver), 0);
+        }
+        else {
+            move(receiver.getSlot(), value);
+        }
+        return null;
+    }
+
+    @Override
+    public Integer visit(Ast.Statement.If ast) {
+        int condition = visit(ast.getCondition());
+        int otherwise = jump(Bytecode.JUMP_FALSE, condition);
+        ast.getThenStatements().forEach(this::statement);
+        if (ast.getElseStatements().isEmpty()) {
+            patch(otherwise);
+        }
+        else {
+            int end = jump(Bytecode.JUMP, 0);
+            patch(otherwise);
+            ast.getElseStatements().forEach(this::statement);
+            patch(end);
+        }
+        return null;
+    }
+
+    @Override
+    public Integer visit(Ast.Statement.Switch ast) {
+        int condition = visit(ast.getCondition());
+        List<Integer> ends = new ArrayList<>();
+        for (Ast.Statement.Case current : ast.getCases()) {
+            if (current.getValue().isPresent()) {
+                int value = visit(current.getValue().get());
+                int matches = allocate();
+                emit(Bytecode.EQ, matches, condition, value);
+                int skip = jump(Bytecode.JUMP_FALSE, matches);
+                visit(current);
+                ends.add(jump(Bytecode.JUMP, 0));
+                patch(skip);
+            }
+            else {
+                visit(current);
+            }
+        }
+        ends.forEach(this::patch);
+        return null;
+    }
+
+    @Override
+    public Integer visit(Ast.Statement.Case ast) {
+        ast.getStatements().forEach(this::statement);
+        return null;
+    }
+
+    @Override
+    public Integer visit(Ast.Statement.While ast) {
+        int start = length;
+        int condition = visit(ast.getCondition());
+        int end = jump(Bytecode.JUMP_FALSE, condition);
+        ast.getStatements().forEach(this::statement);
+        emit(Bytecode.JUMP, 0, start, 0);
+        patch(end);
+        return null;
+    }
+
+    @Override
+    public Integer visit(Ast.Statement.Return ast) {
+        emit(Bytecode.RETURN, visit(ast.getValue()), 0, 0);
+        return null;
+    }
+
+    @Override
+    public Integer visit(Ast.Expression.Literal ast) {
+        return constant(ast.getLiteral());
+    }
+
+    @Override
+    public Integer visit(Ast.Expression.Group ast) {
+        return visit(ast.getExpression());
+    }
+
+    @Override
+    public Integer visit(Ast.Expression.Binary ast) {
+        if (ast.getOperator().equals("&&") || ast.getOperator().equals("||")) {
+            int result = allocate();
+            move(result, visit(ast.getLeft()));
+            int right = jump(Bytecode.JUMP_FALSE, result);
+            int end = -1;
+            if (ast.getOperator().equals("||")) {
+                end = jump(Bytecode.JUMP, 0);
+                patch(right);
+            }
+            move(result, visit(ast.getRight()));
+            emit(Bytecode.TEST, result, 0, 0);
+            patch(ast.getOperator().equals("||") ? end : right);
+            return result;
+        }
+        int left = visit(ast.getLeft());
+        int right = visit(ast.getRight());
+        int result = allocate();
+        emit(opcode(ast.getOperator()), result, left, right);
+        return result;
+    }
+
+    private static int opcode(String operator) {
+        switch (operator) {
+            case "+": return Bytecode.ADD;
+            case "-": return Bytecode.SUB;
+            case "*": return Bytecode.MUL;
+            case "/": return Bytecode.DIV;
+            case "^": return Bytecode.POW;
+            case "<": return Bytecode.LT;
+            case ">": return Bytecode.GT;
+            case "==": return Bytecode.EQ;
+            case "!=": return Bytecode.NE;
+            default: throw new RuntimeException("Unknown operator " + operator + ".");
+        }
+    }
+
+    @Override
+    public Integer visit(Ast.Expression.Access ast) {
+        int variable = variable(ast);
+        if (ast.getOffset().isEmpty()) {
+            return variable;
+        }
+        int offset = visit(ast.getOffset().get());
+        int result = allocate();
+        emit(Bytecode.LOAD_INDEX, result, variable, offset);
+        return result;
+    }
+
+    private int variable(Ast.Expression.Access ast) {
+        if (ast.getDepth() == Analyzer.LOCAL_DEPTH) {
+            return ast.getSlot();
+        }
+        int result = allocate();
+        emit(Bytecode.LOAD_GLOBAL, result, global(ast), 0);
+        return result;
+    }
+
+    /**
+     * Returns the index of the global accessed. A variable of the host scope
+     * has no slot and is added to the globals on first use, to be linked by
+     * name when the bytecode is run.
+     */
+    private int global(Ast.Expression.Access ast) {
+        if (ast.getSlot() >= 0) {
+            return ast.getSlot();
+        }
+        else if (ast.getVariable() == null) {
+            throw new RuntimeException("The variable " + ast.getName() + " is not resolved.");
+        }
+        return hosts.computeIfAbsent(ast.getName(), name -> {
+            globals.add(new Bytecode.Global(name, ast.getVariable().getMutable(), true));
+            return globals.size() - 1;
+        });
+    }
+
+    @Override
+    public Integer visit(Ast.Expression.Function ast) {
+        int base = arguments(ast.getArguments());
+        emit(Bytecode.CALL, base, ast.getSlot(), base);
+        next = base + 1;
+        return base;
+    }
+
+    @Override
+    public Integer visit(Ast.Expression.PlcList ast) {
+        int base = arguments(ast.getValues());
+        emit(Bytecode.LIST, base, base, ast.getValues().size());
+        next = base + 1;
+        return base;
+    }
+
+    /**
+     * Evaluates expressions into consecutive registers, returning the first.
+     */
+    private int arguments(List<Ast.Expression> expressions) {
+        int base = next;
+        next += Math.max(expressions.size(), 1);
+        registers = Math.max(registers, next);
+        for (int index = 0; index < expressions.size(); index++) {
+            move(base + index, visit(expressions.get(index)));
+        }
+        return base;
+    }
+
+    private int constant(Object value) {
+        Integer slot = constantSlots.get(value);
+        if (slot == null) {
+            slot = constants.size();
+            constants.add(value);
+            constantSlots.put(value, slot);
+        }
+        int result = allocate();
+        emit(Bytecode.CONST, result, slot, 0);
+        return result;
+    }
+
+    private int allocate() {
+        registers = Math.max(registers, next + 1);
+        return next++;
+    }
+
+    private void move(int target, int source) {
+        if (target != source) {
+            emit(Bytecode.MOVE, target, source, 0);
+        }
+    }
+
+    private void begin(int locals) {
+        code = new int[64];
+        length = 0;
+        next = Math.max(locals, 0);
+        registers = next;
+    }
+
+    private Bytecode.Chunk end(String name, int arity) {
+        return new Bytecode.Chunk(name, arity, registers, Arrays.copyOf(code, length));
+    }
+
+    private void emit(int opcode, int a, int b, int c) {
+        if (length + 3 > code.length) {
+            code = Arrays.copyOf(code, code.length * 2);
+        }
+        code[length++] = opcode | a << 8;
+        code[length++] = b;
+        code[length++] = c;
+    }
+
+    private int jump(int opcode, int a) {
+        emit(opcode, a, -1, 0);
+        return length - 3;
+    }
+
+    private void patch(int jump) {
+        code[jump + 1] = length;
+    }
+}
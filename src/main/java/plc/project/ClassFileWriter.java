@@ -0,0 +1,341 @@
+package plc.project;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal writer for JVM class files, used by the {@link JvmCompiler}. Classes
+ * are written as version 49 so the verifier infers stack map frames itself.
+ */
+final class ClassFileWriter {
+
+    static final int ACC_PUBLIC = 0x0001;
+    static final int ACC_STATIC = 0x0008;
+    static final int ACC_FINAL = 0x0010;
+    static final int ACC_SUPER = 0x0020;
+
+    static final int ACONST_NULL = 0x01;
+    static final int ICONST_0 = 0x03;
+    static final int DCONST_0 = 0x0E;
+    static final int DCONST_1 = 0x0F;
+    static final int BIPUSH = 0x10;
+    static final int SIPUSH = 0x11;
+    static final int LDC_W = 0x13;
+    static final int LDC2_W = 0x14;
+    static final int ILOAD = 0x15;
+    static final int DLOAD = 0x18;
+    static final int ALOAD = 0x19;
+    static final int IALOAD = 0x2E;
+    static final int DALOAD = 0x31;
+    static final int AALOAD = 0x32;
+    static final int BALOAD = 0x33;
+    static final int CALOAD = 0x34;
+    static final int ISTORE = 0x36;
+    static final int DSTORE = 0x39;
+    static final int ASTORE = 0x3A;
+    static final int IASTORE = 0x4F;
+    static final int DASTORE = 0x52;
+    static final int AASTORE = 0x53;
+    static final int BASTORE = 0x54;
+    static final int CASTORE = 0x55;
+    static final int POP = 0x57;
+    static final int POP2 = 0x58;
+    static final int DUP = 0x59;
+    static final int IADD = 0x60;
+    static final int DADD = 0x63;
+    static final int ISUB = 0x64;
+    static final int DSUB = 0x67;
+    static final int IMUL = 0x68;
+    static final int DMUL = 0x6B;
+    static final int IDIV = 0x6C;
+    static final int DDIV = 0x6F;
+    static final int IXOR = 0x82;
+    static final int I2D = 0x87;
+    static final int D2I = 0x8E;
+    static final int DCMPL = 0x97;
+    static final int DCMPG = 0x98;
+    static final int IFEQ = 0x99;
+    static final int IFNE = 0x9A;
+    static final int IFLT = 0x9B;
+    static final int IFGT = 0x9D;
+    static final int IF_ICMPEQ = 0x9F;
+    static final int IF_ICMPNE = 0xA0;
+    static final int IF_ICMPLT = 0xA1;
+    static final int IF_ICMPGT = 0xA3;
+    static final int GOTO = 0xA7;
+    static final int IRETURN = 0xAC;
+    static final int DRETURN = 0xAF;
+    static final int ARETURN = 0xB0;
+    static final int RETURN = 0xB1;
+    static final int GETSTATIC = 0xB2;
+    static final int PUTSTATIC = 0xB3;
+    static final int INVOKEVIRTUAL = 0xB6;
+    static final int INVOKESPECIAL = 0xB7;
+    static final int INVOKESTATIC = 0xB8;
+    static final int NEW = 0xBB;
+    static final int NEWARRAY = 0xBC;
+    static final int ANEWARRAY = 0xBD;
+
+    private static final int VERSION = 49;
+
+    private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+    private final DataOutputStream poolData = new DataOutputStream(pool);
+    private final Map<String, Integer> entries = new HashMap<>();
+    private final List<byte[]> fields = new ArrayList<>();
+    private final List<byte[]> methods = new ArrayList<>();
+    private final int thisClass;
+    private final int superClass;
+    private int count = 1;
+
+    ClassFileWriter(String name, String superName) {
+        thisClass = classRef(name);
+        superClass = classRef(superName);
+    }
+
+    int utf8(String value) {
+        return entry("Utf8:" + value, 1, data -> {
+            data.writeByte(1);
+            data.writeUTF(value);
+        });
+    }
+
+    int classRef(String name) {
+        int utf8 = utf8(name);
+        return entry("Class:" + name, 1, data -> {
+            data.writeByte(7);
+            data.writeShort(utf8);
+        });
+    }
+
+    int string(String value) {
+        int utf8 = utf8(value);
+        return entry("String:" + value, 1, data -> {
+            data.writeByte(8);
+            data.writeShort(utf8);
+        });
+    }
+
+    int integer(int value) {
+        return entry("Integer:" + value, 1, data -> {
+            data.writeByte(3);
+            data.writeInt(value);
+        });
+    }
+
+    int doubleValue(double value) {
+        return entry("Double:" + Double.doubleToRawLongBits(value), 2, data -> {
+            data.writeByte(6);
+            data.writeDouble(value);
+        });
+    }
+
+    int fieldRef(String owner, String name, String descriptor) {
+        return memberRef(9, owner, name, descriptor);
+    }
+
+    int methodRef(String owner, String name, String descriptor) {
+        return memberRef(10, owner, name, descriptor);
+    }
+
+    private int memberRef(int tag, String owner, String name, String descriptor) {
+        int classRef = classRef(owner);
+        int nameRef = utf8(name);
+        int descriptorRef = utf8(descriptor);
+        int nameAndType = entry("NameAndType:" + name + ":" + descriptor, 1, data -> {
+            data.writeByte(12);
+            data.writeShort(nameRef);
+            data.writeShort(descriptorRef);
+        });
+        return entry(tag + ":" + owner + "." + name + ":" + descriptor, 1, data -> {
+            data.writeByte(tag);
+            data.writeShort(classRef);
+            data.writeShort(nameAndType);
+        });
+    }
+
+    private int entry(String key, int size, Writer writer) {
+        Integer index = entries.get(key);
+        if (index == null) {
+            index = count;
+            write(poolData, writer);
+            entries.put(key, index);
+            count += size;
+        }
+        return index;
+    }
+
+    void field(int access, String name, String descriptor) {
+        fields.add(bytes(data -> {
+            data.writeShort(access);
+            data.writeShort(utf8(name));
+            data.writeShort(utf8(descriptor));
+            data.writeShort(0);
+        }));
+    }
+
+    void method(int access, String name, String descriptor, Code code) {
+        int nameRef = utf8(name);
+        int descriptorRef = utf8(descriptor);
+        int codeRef = utf8("Code");
+        byte[] body = code.toByteArray();
+        methods.add(bytes(data -> {
+            data.writeShort(access);
+            data.writeShort(nameRef);
+            data.writeShort(descriptorRef);
+            data.writeShort(1);
+            data.writeShort(codeRef);
+            data.writeInt(12 + body.length);
+            data.writeShort(code.maxStack);
+            data.writeShort(code.maxLocals);
+            data.writeInt(body.length);
+            data.write(body);
+            data.writeShort(0);
+            data.writeShort(0);
+        }));
+    }
+
+    byte[] toByteArray() {
+        return bytes(data -> {
+            data.writeInt(0xCAFEBABE);
+            data.writeShort(0);
+            data.writeShort(VERSION);
+            data.writeShort(count);
+            data.write(pool.toByteArray());
+            data.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            data.writeShort(thisClass);
+            data.writeShort(superClass);
+            data.writeShort(0);
+            data.writeShort(fields.size());
+            for (byte[] field : fields) {
+                data.write(field);
+            }
+            data.writeShort(methods.size());
+            for (byte[] method : methods) {
+                data.write(method);
+            }
+            data.writeShort(0);
+        });
+    }
+
+    private interface Writer {
+
+        void write(DataOutputStream data) throws IOException;
+
+    }
+
+    private static void write(DataOutputStream data, Writer writer) {
+        try {
+            writer.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] bytes(Writer writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        write(new DataOutputStream(bytes), writer);
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Bytecode of a single method. Tracks the operand stack depth of each
+     * emitted instruction to compute {@code max_stack}; the depth at a label
+     * is taken from the jumps to it, since code after a {@code GOTO} is only
+     * reachable through one.
+     */
+    static final class Code {
+
+        private byte[] bytes = new byte[256];
+        private int length = 0;
+        private int stack = 0;
+        private int maxStack = 0;
+        private int maxLocals;
+
+        Code(int locals) {
+            this.maxLocals = locals;
+        }
+
+        void locals(int locals) {
+            maxLocals = Math.max(maxLocals, locals);
+        }
+
+        void op(int opcode, int delta) {
+            u1(opcode);
+            adjust(delta);
+        }
+
+        void op(int opcode, int operand, int delta) {
+            u1(opcode);
+            u1(operand);
+            adjust(delta);
+        }
+
+        void opWide(int opcode, int operand, int delta) {
+            u1(opcode);
+            u2(operand);
+            adjust(delta);
+        }
+
+        private void adjust(int delta) {
+            stack += delta;
+            maxStack = Math.max(maxStack, stack);
+        }
+
+        void jump(int opcode, Label target, int delta) {
+            int instruction = length;
+            u1(opcode);
+            u2(target.position >= 0 ? target.position - instruction : 0);
+            if (target.position < 0) {
+                target.fixups.add(instruction);
+            }
+            adjust(delta);
+            target.stack = stack;
+        }
+
+        void place(Label label) {
+            label.position = length;
+            if (label.stack >= 0) {
+                stack = label.stack;
+            }
+            for (int instruction : label.fixups) {
+                int offset = length - instruction;
+                bytes[instruction + 1] = (byte) (offset >> 8);
+                bytes[instruction + 2] = (byte) offset;
+            }
+        }
+
+        private void u1(int value) {
+            if (length == bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            bytes[length++] = (byte) value;
+        }
+
+        private void u2(int value) {
+            u1(value >> 8);
+            u1(value);
+        }
+
+        private byte[] toByteArray() {
+            if (length > 0xFFFF / 2) {
+                throw new RuntimeException("The JVM backend does not support methods this large.");
+            }
+            return Arrays.copyOf(bytes, length);
+        }
+    }
+
+    static final class Label {
+
+        private final List<Integer> fixups = new ArrayList<>();
+        private int position = -1;
+        private int stack = -1;
+
+    }
+}
@@ -0,0 +1,1052 @@
+package plc.project;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BinaryOperator;
+
+/**
+ * Compiles an analyzed AST once into a tree of {@link Node}s specialized by
+ * operator, operand type and variable location, which then executes without
+ * revisiting the AST. Results match the {@link Interpreter}, including
+ * switch tables, self-recursive tail calls and {@link ExecutionBudget}
+ * charges; ASTs that have not been through the {@link Analyzer} are
+ * rejected.
+ */
+public final class ClosureCompiler implements Ast.Visitor<ClosureCompiler.Node> {
+
+    /**
+     * Returned by a tail call to the enclosing function once its arguments
+     * have been written to the start of the frame.
+     */
+    private static final Environment.PlcObject TAIL = new Environment.PlcObject(Environment.Type.NIL, null, "TAIL");
+
+    private final Scope scope;
+    private final Map<Environment.Function, Target> targets = new IdentityHashMap<>();
+    private Environment.Variable[] globals;
+    private ExecutionBudget budget;
+    private OutputChannel output = OutputChannel.system();
+
+    public ClosureCompiler(Scope parent) {
+        scope = new Scope(parent);
+        scope.defineFunction("print", 1, args -> {
+            output.println(args.get(0).getValue());
+            return Environment.NIL;
+        });
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    /**
+     * Limits executions of the compiled program by the budget, charged as by
+     * {@link Interpreter#setBudget(ExecutionBudget)}. Null removes the limits.
+     */
+    public void setBudget(ExecutionBudget budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Sends the output of {@code print} to the channel, which is flushed when
+     * the compiled program finishes executing. Defaults to
+     * {@link OutputChannel#system()}.
+     */
+    public void setOutput(OutputChannel output) {
+        this.output = output;
+    }
+
+    /**
+     * An executable node. Expressions return their value; statements return
+     * null to continue with the next statement, or the value of a
+     * {@code RETURN} to unwind to the enclosing function.
+     */
+    public abstract static class Node {
+
+        public abstract Environment.PlcObject execute(Environment.PlcObject[] frame);
+
+    }
+
+    @Override
+    public Node visit(Ast.Source ast) {
+        if (ast.getFunctionTable() == null) {
+            throw new RuntimeException("The closure compiler requires an analyzed AST.");
+        }
+        globals = new Environment.Variable[ast.getGlobals().size()];
+        Node[] initializers = ast.getGlobals().stream().map(this::visit).toArray(Node[]::new);
+
+        // Declare every function before compiling bodies so calls, including
+        // forward and recursive ones, bind directly to their target.
+        for (Ast.Function function : ast.getFunctions()) {
+            Target target = new Target(function.getParameters().size(), function.getFrameSize());
+            targets.put(function.getFunction(), target);
+            scope.defineFunction(function.getName(), target.arity, target::invoke);
+        }
+        ast.getFunctions().forEach(this::visit);
+
+        Environment.Function main = scope.lookupFunction("main", 0);
+        return new Compiled(initializers, main);
+    }
+
+    @Override
+    public Node visit(Ast.Global ast) {
+        Environment.Variable variable = scope.defineVariable(ast.getName(), ast.getName(), Environment.Type.ANY, ast.getMutable(), Environment.NIL);
+        globals[ast.getSlot()] = variable;
+        return new GlobalStore(variable, ast.getValue().isPresent() ? visit(ast.getValue().get()) : new Constant(Environment.NIL));
+    }
+
+    @Override
+    public Node visit(Ast.Function ast) {
+        Target target = targets.get(ast.getFunction());
+        target.body = block(ast.getStatements());
+        return target.body;
+    }
+
+    @Override
+    public Node visit(Ast.Statement.Expression ast) {
+        return new Discard(visit(ast.getExpression()));
+    }
+
+    @Override
+    public Node visit(Ast.Statement.Declaration ast) {
+        return new LocalStore(ast.getSlot(), ast.getValue().isPresent() ? visit(ast.getValue().get()) : new Constant(Environment.NIL));
+    }
+
+    @Override
+    public Node visit(Ast.Statement.Assignment ast) {
+        Ast.Expression.Access receiver = (Ast.Expression.Access) ast.getReceiver();
+        Node value = visit(ast.getValue());
+        Environment.Variable variable = variable(receiver);
+        if (variable != null && !variable.getMutable()) {
+            throw new RuntimeException("error" + receiver.getName());
+        }
+        if (receiver.getOffset().isPresent()) {
+            return new ListStore(read(receiver), visit(receiver.getOffset().get()), value, receiver.getName());
+        }
+        else if (variable != null) {
+            return new GlobalStore(variable, value);
+        }
+        return new LocalStore(receiver.getSlot(), value);
+    }
+
+    @Override
+    public Node visit(Ast.Statement.If ast) {
+        return new If(visit(ast.getCondition()), block(ast.getThenStatements()), block(ast.getElseStatements()));
+    }
+
+    @Override
+    public Node visit(Ast.Statement.Switch ast) {
+        Node[] values = new Node[ast.getCases().size()];
+        Node[] bodies = new Node[ast.getCases().size()];
+        for (int index = 0; index < values.length; index++) {
+            Ast.Statement.Case current = ast.getCases().get(index);
+            values[index] = current.getValue().isPresent() ? visit(current.getValue().get()) : null;
+            bodies[index] = visit(current);
+        }
+        return new Switch(visit(ast.getCondition()), values, bodies, ast.getTable());
+    }
+
+    @Override
+    public Node visit(Ast.Statement.Case ast) {
+        return block(ast.getStatements());
+    }
+
+    @Override
+    public Node visit(Ast.Statement.While ast) {
+        return new While(visit(ast.getCondition()), block(ast.getStatements()));
+    }
+
+    @Override
+    public Node visit(Ast.Statement.Return ast) {
+        if (ast.isTail()) {
+            return new TailCall(((Ast.Expression.Function) ast.getValue()).getArguments().stream().map(this::visit).toArray(Node[]::new));
+        }
+        return new Return(visit(ast.getValue()));
+    }
+
+    @Override
+    public Node visit(Ast.Expression.Literal ast) {
+        return new Constant(ast.getLiteral() == null ? Environment.NIL : Environment.create(ast.getLiteral()));
+    }
+
+    @Override
+    public Node visit(Ast.Expression.Group ast) {
+        return visit(ast.getExpression());
+    }
+
+    @Override
+    public Node visit(Ast.Expression.Binary ast) {
+        Node left = visit(ast.getLeft());
+        Node right = visit(ast.getRight());
+        boolean integer = ast.getLeft().getType().equals(Environment.Type.INTEGER);
+        switch (ast.getOperator()) {
+            case "&&":
+                return new And(left, right);
+            case "||":
+                return new Or(left, right);
+            case "<":
+                return integer ? new IntLess(left, right) : new Less(left, right);
+            case ">":
+                return integer ? new IntGreater(left, right) : new Greater(left, right);
+            case "==":
+                return integer ? new IntEquals(left, right) : new Equals(left, right);
+            case "!=":
+                return integer ? new IntNotEquals(left, right) : new NotEquals(left, right);
+            case "+":
+                if (ast.getType().equals(Environment.Type.STRING)) {
+                    return new Concat(left, right);
+                }
+                return integer ? new IntAdd(left, right) : new DecimalOperation(left, right, BigDecimal::add);
+            case "-":
+                return integer ? new IntSubtract(left, right) : new DecimalOperation(left, right, BigDecimal::subtract);
+            case "*":
+                return integer ? new IntMultiply(left, right) : new DecimalOperation(left, right, BigDecimal::multiply);
+            case "/":
+                return integer ? new IntDivide(left, right) : new DecimalOperation(left, right, ClosureCompiler::divide);
+            case "^":
+                return integer ? new IntPower(left, right) : new DecimalPower(left, right);
+            default:
+                throw new RuntimeException("Unknown operator " + ast.getOperator() + ".");
+        }
+    }
+
+    @Override
+    public Node visit(Ast.Expression.Access ast) {
+        if (ast.getOffset().isPresent()) {
+            return new ListRead(read(ast), visit(ast.getOffset().get()), ast.getName());
+        }
+        return read(ast);
+    }
+
+    private Node read(Ast.Expression.Access ast) {
+        Environment.Variable variable = variable(ast);
+        return variable != null ? new GlobalRead(variable) : new LocalRead(ast.getSlot());
+    }
+
+    /**
+     * Returns the variable accessed by a global or host-provided access, or
+     * null if the access reads a slot in the function frame.
+     */
+    private Environment.Variable variable(Ast.Expression.Access ast) {
+        if (ast.getSlot() < 0) {
+            return scope.lookupVariable(ast.getName());
+        }
+        else if (ast.getDepth() == Analyzer.GLOBAL_DEPTH) {
+            return globals[ast.getSlot()];
+        }
+        return null;
+    }
+
+    @Override
+    public Node visit(Ast.Expression.Function ast) {
+        Node[] arguments = ast.getArguments().stream().map(this::visit).toArray(Node[]::new);
+        Target target = targets.get(ast.getFunction());
+        if (target != null) {
+            return new Call(target, arguments);
+        }
+        return new NativeCall(scope.lookupFunction(ast.getName(), arguments.length), arguments);
+    }
+
+    @Override
+    public Node visit(Ast.Expression.PlcList ast) {
+        return new PlcList(ast.getValues().stream().map(this::visit).toArray(Node[]::new));
+    }
+
+    private Block block(List<Ast.Statement> statements) {
+        return new Block(statements.stream().map(this::visit).toArray(Node[]::new));
+    }
+
+    /**
+     * Wraps a newly created value, charging its size to the budget.
+     */
+    private Environment.PlcObject allocate(Object value) {
+        if (budget != null) {
+            budget.allocate(value);
+        }
+        return Environment.create(value);
+    }
+
+    private static BigDecimal divide(BigDecimal left, BigDecimal right) {
+        if (right.equals(BigDecimal.valueOf(0))) {
+            throw new RuntimeException("error");
+        }
+        return left.divide(right, RoundingMode.HALF_EVEN);
+    }
+
+    private static boolean condition(Node node, Environment.PlcObject[] frame) {
+        return requireType(Boolean.class, node.execute(frame));
+    }
+
+    private static <T> T requireType(Class<T> type, Environment.PlcObject object) {
+        if (type.isInstance(object.getValue())) {
+            return type.cast(object.getValue());
+        } else {
+            throw new RuntimeException("Expected type " + type.getName() + ", received " + object.getValue().getClass().getName() + ".");
+        }
+    }
+
+    /**
+     * A compiled function, which runs its body again on the same frame when
+     * it returns a tail call to itself.
+     */
+    private final class Target {
+
+        private final int arity;
+        private final int frameSize;
+        private Block body;
+
+        private Target(int arity, int frameSize) {
+            this.arity = arity;
+            this.frameSize = frameSize;
+        }
+
+        /**
+         * Runs the body on a frame holding the arguments, crediting the
+         * frame's values to the budget when it returns.
+         */
+        private Environment.PlcObject invoke(Environment.PlcObject[] frame) {
+            if (budget != null) {
+                for (int index = 0; index < arity; index++) {
+                    budget.store(null, frame[index]);
+                }
+            }
+            try {
+                while (true) {
+                    if (budget != null) {
+                        budget.tick();
+                    }
+                    Environment.PlcObject result = body.execute(frame);
+                    if (result != TAIL) {
+                        return result != null ? result : Environment.NIL;
+                    }
+                }
+            }
+            finally {
+                if (budget != null) {
+                    budget.release(frame);
+                }
+            }
+        }
+
+        private Environment.PlcObject invoke(List<Environment.PlcObject> arguments) {
+            Environment.PlcObject[] frame = new Environment.PlcObject[frameSize];
+            for (int index = 0; index < arity; index++) {
+                frame[index] = arguments.get(index);
+            }
+            return invoke(frame);
+        }
+    }
+
+    private final class Compiled extends Node {
+
+        private final Node[] initializers;
+        private final Environment.Function main;
+
+        private Compiled(Node[] initializers, Environment.Function main) {
+            this.initializers = initializers;
+            this.main = main;
+        }
+
+        @Override
+        public Environment.PlcObject execute(Environment.PlcObject[] frame) {
+            try {
+                for (Node initializer : initializers) {
+                    initializer.execute(frame);
+                }
+                return main.invoke(List.of());
+            } finally {
+                output.flush();
+            }
+        }
+    }
+
+    private static final class Block extends Node {
+
+        private final Node[] statements;
+
+        private Block(Node[] statements) {
+            this.statements = statements;
+        }
+
+        @Override
+        public Environment.PlcObject execute(Environment.PlcObject[] frame) {
+            for (Node statement : statements) {
+                Environment.PlcObject result = statement.execute(frame);
+                if (result != null) {
+                    return result;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class Discard extends Node {
+
+        private final Node expression;
+
+        private Discard(Node expression) {
+            this.expression = expression;
+        }
+
+        @Override
+        public Environment.PlcObject execute(Environment.PlcObject[] frame) {
+            expression.execute(frame);
+            return null;
+        }
+    }
+
+    private final class LocalStore extends Node {
+
+        private final int slot;
+        private final Node value;
+
+        private LocalStore(int slot, Node value) {
+            this.slot = slot;
+            this.value = value;
+        }
+
+        @Override
+        public Environment.PlcObject execute(Environment.PlcObject[] frame) {
+            Environment.PlcObject result = value.execute(frame);
+            if (budget != null) {
+                budget.store(frame[slot], result);
+            }
+            frame[slot] = result;
+            return null;
+        }
+    }
+
+    private final class GlobalStore extends Node {
+
+        private final Environment.Variable variable;
+        private final Node value;
+
+        private GlobalStore(Environment.Variable variable, Node value) {
+            this.variable = variable;
+            this.value = value;
+        }
+
+        @Override
+        public Environment.PlcObject execute(Environment.PlcObject[] frame) {
+            Environment.PlcObject result = value.execute(frame);
+            if (budget != null) {
+                budget.store(variable.getValue(), result);
+            }
+            variable.setValue(result);
+            return null;
+        }
+    }
+
+    private final class ListStore extends Node {
+
+        private final Node receiver;
+        private final Node offset;
+        private final Node value;
+        private final String name;
+
+        private ListStore(Node receiver, Node offset, Node value, String name) {
+            this.receiver = receiver;
+            this.offset = offset;
+            this.value = value;
+            this.name = name;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Environment.PlcObject execute(Environment.PlcObject[] frame) {
+            Environment.PlcObject result = value.execute(frame);
+            if (!(receiver.execute(frame).getValue() instanceof List<?> list)) {
+                throw new RuntimeException("error" + name);
+            }
+            int index = index(offset.execute(frame), list.size());
+            if (budget != null) {
+                budget.store(list.get(index), result);
+            }
+            ((List<Object>) list).set(index, result.getValue());
+            return null;
+        }
+    }
+
+    private static int index(Environment.PlcObject offset, int size) {
+        if (!(offset.getValue() instanceof BigInteger integer)) {
+            throw new RuntimeException("error" + offset.getValue());
+        }
+        int index = integer.intValueExact();
+        if (index >= size || index < 0) {
+            throw new RuntimeException("error" + index);
+        }
+        return index;
+    }
+
+    private static final class If extends Node {
+
+        private final Node condition;
+        private final Node thenStatements;
+        private final Node elseStatements;
+
+        private If(Node condition, Node thenStatements, Node elseStatements) {
+            this.condition = condition;
+            this.thenStatements = thenStatements;
+            this.elseStatements = elseStatements;
+        }
+
+        @Override
+        public Environment.PlcObject execute(Environment.PlcObject[] frame) {
+            return condition(condition, frame) ? thenStatements.execute(frame) : elseStatements.execute(frame);
+        }
+    }
+
+    private static final class Switch extends Node {
+
+        private final Node condition;
+        private final Node[] values;
+        private final Node[] bodies;
+        private final Map<Object, Integer> table;
+
+        private Switch(Node condition, Node[] values, Node[] bodies, Map<Object, Integer> table) {
+            this.condition = condition;
+            this.values = values;
+            this.bodies = bodies;
+            this.table = table;
+        }
+
+        @Override
+        public Environment.PlcObject execute(Environment.PlcObject[] frame) {
+            Object value = condition.execute(frame).getValue();
+            if (table != null) {
+                Integer index = table.get(value);
+                return bodies[index != null ? index : bodies.length - 1].execute(frame);
+            }
+            for (int index = 0; index < values.length; index++) {
+                if (values[index] == null || value.equals(values[index].execute(frame).getValue())) {
+                    return bodies[index].execute(frame);
+                }
+            }
+            return null;
+        }
+    }
+
+    private final class While extends Node {
+
+        private final Node condition;
+        private final Node body;
+
+        private While(Node condition, Node body) {
+            this.condition = condition;
+            this.body = body;
+        }
+
+        @Override
+        public Environment.PlcObject execute(Environment.PlcObject[] frame) {
+            while (condition(condition, frame)) {
+                if (budget != null) {
+                    budget.tick();
+                }
+                Environment.PlcObject result = body.execute(frame);
+                if (result != null) {
+                    return result;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class Return extends Node {
+
+        private final Node value;
+
+        private Return(Node value) {
+            this.value = value;
+        }
+
+        @Override
+        public Environment.PlcObject execute(Environment.PlcObject[] frame) {
+            return value.execute(frame);
+        }
+    }
+
+    private final class TailCall extends Node {
+
+        private final Node[] arguments;
+
+        private TailCall(Node[] arguments) {
+            this.arguments = arguments;
+        }
+
+        @Override
+        public Environment.PlcObject execute(Environment.PlcObject[] frame) {
+            Environment.PlcObject[] values = new Environment.PlcObject[arguments.length];
+            for (int index = 0; index < values.length; index++) {
+                values[index] = arguments[index].execute(frame);
+            }
+            if (budget != null) {
+                for (int index = 0; index < values.length; index++) {
+                    budget.store(frame[index], values[index]);
+                }
+            }
+            System.arraycopy(values, 0, frame, 0, values.length);
+            return TAIL;
+        }
+    }
+
+    private static final class Constant extends Node {
+
+        private final Environment.PlcObject value;
+
+        private Constant(Environment.PlcObject value) {
+            this.value = value;
+        }
+
+        @Override
+        public Environment.PlcObject execute(Environment.PlcObject[] frame) {
+            return value;
+        }
+    }
+
+    private static final class LocalRead extends Node {
+
+        private final int slot;
+
+        private LocalRead(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        public Environment.PlcObject execute(Environment.PlcObject[] frame) {
+            return frame[slot];
+        }
+    }
+
+    private static final class GlobalRead extends Node {
+
+        private final Environment.Variable variable;
+
+        private GlobalRead(Environment.Variable variable) {
+            this.variable = variable;
+        }
+
+        @Override
+        public Environment.PlcObject execute(Environment.PlcObject[] frame) {
+            return variable.getValue();
+        }
+    }
+
+    private static final class ListRead extends Node {
+
+        private final Node receiver;
+        private final Node offset;
+        private final String name;
+
+        private ListRead(Node receiver, Node offset, String name) {
+            this.receiver = receiver;
+            this.offset = offset;
+            this.name = name;
+        }
+
+        @Override
+        public Environment.PlcObject execute(Environment.PlcObject[] frame) {
+            if (!(receiver.execute(frame).getValue() instanceof List<?> list)) {
+                throw new RuntimeException("error" + name);
+            }
+            return Environment.create(list.get(index(offset.execute(frame), list.size())));
+        }
+    }
+
+    private static final class Call extends Node {
+
+        private final Target target;
+        private final Node[] arguments;
+
+        private Call(Target target, Node[] arguments) {
+            this.target = target;
+            this.arguments = arguments;
+        }
+
+        @Override
+        public Environment.PlcObject execute(Environment.PlcObject[] frame) {
+            Environment.PlcObject[] callee = new Environment.PlcObject[target.frameSize];
+            for (int index = 0; index < arguments.length; index++) {
+                callee[index] = arguments[index].execute(frame);
+            }
+            return target.invoke(callee);
+        }
+    }
+
+    private static final class NativeCall extends Node {
+
+        private final Environment.Function function;
+        private final Node[] arguments;
+
+        private NativeCall(Environment.Function function, Node[] arguments) {
+            this.function = function;
+            this.arguments = arguments;
+        }
+
+        @Override
+        public Environment.PlcObject execute(Environment.PlcObject[] frame) {
+            Environment.PlcObject[] values = new Environment.PlcObject[arguments.length];
+            for (int index = 0; index < arguments.length; index++) {
+                values[index] = arguments[index].execute(frame);
+            }
+            return function.invoke(Arrays.asList(values));
+        }
+    }
+
+    private final class PlcList extends Node {
+
+        private final Node[] values;
+
+        private PlcList(Node[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public Environment.PlcObject execute(Environment.PlcObject[] frame) {
+            List<Object> list = new ArrayList<>(values.length);
+            for (Node value : values) {
+                list.add(value.execute(frame).getValue());
+            }
+            return allocate(list);
+        }
+    }
+
+    private abstract class Binary extends Node {
+
+        protected final Node left;
+        protected final Node right;
+
+        private Binary(Node left, Node right) {
+            this.left = left;
+            this.right = right;
+        }
+    }
+
+    private final class And extends Binary {
+
+        private And(Node left, Node right) {
+            super(left, right);
+        }
+
+        @Override
+        public Environment.PlcObject execute(Environment.PlcObject[] frame) {
+            if (!condition(left, frame)) {
+                return Environment.FALSE;
+            }
+            return condition(right, frame) ? Environment.TRUE : Environment.FALSE;
+        }
+    }
+
+    private final class Or extends Binary {
+
+        private Or(Node left, Node right) {
+            super(left, right);
+        }
+
+        @Override
+        public Environment.PlcObject execute(Environment.PlcObject[] frame) {
+            if (condition(left, frame)) {
+                return Environment.TRUE;
+            }
+            return condition(right, frame) ? Environment.TRUE : Environment.FALSE;
+        }
+    }
+
+    private final class Less extends Binary {
+
+        private Less(Node left, Node right) {
+            super(left, right);
+        }
+
+        @Override
+        public Environment.PlcObject execute(Environment.PlcObject[] frame) {
+            return compare(left.execute(frame), right.execute(frame)) < 0 ? Environment.TRUE : Environment.FALSE;
+        }
+    }
+
+    private final class Greater extends Binary {
+
+        private Greater(Node left, Node right) {
+            super(left, right);
+        }
+
+        @Override
+        public Environment.PlcObject execute(Environment.PlcObject[] frame) {
+            return compare(left.execute(frame), right.execute(frame)) > 0 ? Environment.TRUE : Environment.FALSE;
+        }
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static int compare(Environment.PlcObject left, Environment.PlcObject right) {
+        requireType(left.getValue().getClass(), right);
+        return requireType(Comparable.class, left).compareTo(requireType(Comparable.class, right));
+    }
+
+    private final class Equals extends Binary {
+
+        private Equals(Node left, Node right) {
+            super(left, right);
+        }
+
+        @Override
+        public Environment.PlcObject execute(Environment.PlcObject[] frame) {
+            return Objects.equals(left.execute(frame).getValue(), right.execute(frame).getValue()) ? Environment.TRUE : Environment.FALSE;
+        }
+    }
+
+    private final class NotEquals extends Binary {
+
+        private NotEquals(Node left, Node right) {
+            super(left, right);
+        }
+
+        @Override
+        public Environment.PlcObject execute(Environment.PlcObject[] frame) {
+            return Objects.equals(left.execute(frame).getValue(), right.execute(frame).getValue()) ? Environment.FALSE : Environment.TRUE;
+        }
+    }
+
+    private final class Concat extends Binary {
+
+        private Concat(Node left, Node right) {
+            super(left, right);
+        }
+
+        @Override
+        public Environment.PlcObject execute(Environment.PlcObject[] frame) {
+            return allocate(Rope.concat(left.execute(frame), right.execute(frame)));
+        }
+    }
+
+    private final class DecimalOperation extends Binary {
+
+        private final BinaryOperator<BigDecimal> operator;
+
+        private DecimalOperation(Node left, Node right, BinaryOperator<BigDecimal> operator) {
+            super(left, right);
+            this.operator = operator;
+        }
+
+        @Override
+        public Environment.PlcObject execute(Environment.PlcObject[] frame) {
+            BigDecimal x = requireType(BigDecimal.class, left.execute(frame));
+            BigDecimal y = requireType(BigDecimal.class, right.execute(frame));
+            return allocate(operator.apply(x, y));
+        }
+    }
+
+    private final class DecimalPower extends Binary {
+
+        private DecimalPower(Node left, Node right) {
+            super(left, right);
+        }
+
+        @Override
+        public Environment.PlcObject execute(Environment.PlcObject[] frame) {
+            BigDecimal x = requireType(BigDecimal.class, left.execute(frame));
+            BigInteger y = requireType(BigInteger.class, right.execute(frame));
+            return allocate(x.pow(y.intValue(), MathContext.DECIMAL64));
+        }
+    }
+
+    private final class IntLess extends Binary {
+
+        private IntLess(Node left, Node right) {
+            super(left, right);
+        }
+
+        @Override
+        public Environment.PlcObject execute(Environment.PlcObject[] frame) {
+            Environment.PlcObject x = left.execute(frame);
+            Environment.PlcObject y = right.execute(frame);
+            if (x.isLong() && y.isLong()) {
+                return x.getLong() < y.getLong() ? Environment.TRUE : Environment.FALSE;
+            }
+            return compare(x, y) < 0 ? Environment.TRUE : Environment.FALSE;
+        }
+    }
+
+    private final class IntGreater extends Binary {
+
+        private IntGreater(Node left, Node right) {
+            super(left, right);
+        }
+
+        @Override
+        public Environment.PlcObject execute(Environment.PlcObject[] frame) {
+            Environment.PlcObject x = left.execute(frame);
+            Environment.PlcObject y = right.execute(frame);
+            if (x.isLong() && y.isLong()) {
+                return x.getLong() > y.getLong() ? Environment.TRUE : Environment.FALSE;
+            }
+            return compare(x, y) > 0 ? Environment.TRUE : Environment.FALSE;
+        }
+    }
+
+    private final class IntEquals extends Binary {
+
+        private IntEquals(Node left, Node right) {
+            super(left, right);
+        }
+
+        @Override
+        public Environment.PlcObject execute(Environment.PlcObject[] frame) {
+            Environment.PlcObject x = left.execute(frame);
+            Environment.PlcObject y = right.execute(frame);
+            if (x.isLong() && y.isLong()) {
+                return x.getLong() == y.getLong() ? Environment.TRUE : Environment.FALSE;
+            }
+            return Objects.equals(x.getValue(), y.getValue()) ? Environment.TRUE : Environment.FALSE;
+        }
+    }
+
+    private final class IntNotEquals extends Binary {
+
+        private IntNotEquals(Node left, Node right) {
+            super(left, right);
+        }
+
+        @Override
+        public Environment.PlcObject execute(Environment.PlcObject[] frame) {
+            Environment.PlcObject x = left.execute(frame);
+            Environment.PlcObject y = right.execute(frame);
+            if (x.isLong() && y.isLong()) {
+                return x.getLong() != y.getLong() ? Environment.TRUE : Environment.FALSE;
+            }
+            return Objects.equals(x.getValue(), y.getValue()) ? Environment.FALSE : Environment.TRUE;
+        }
+    }
+
+    private final class IntAdd extends Binary {
+
+        private IntAdd(Node left, Node right) {
+            super(left, right);
+        }
+
+        @Override
+        public Environment.PlcObject execute(Environment.PlcObject[] frame) {
+            Environment.PlcObject x = left.execute(frame);
+            Environment.PlcObject y = right.execute(frame);
+            if (x.isLong() && y.isLong()) {
+                try {
+                    return Environment.createInteger(Math.addExact(x.getLong(), y.getLong()));
+                }
+                catch (ArithmeticException e) {
+                    // fall back to BigInteger arithmetic on overflow
+                }
+            }
+            return allocate(requireType(BigInteger.class, x).add(requireType(BigInteger.class, y)));
+        }
+    }
+
+    private final class IntSubtract extends Binary {
+
+        private IntSubtract(Node left, Node right) {
+            super(left, right);
+        }
+
+        @Override
+        public Environment.PlcObject execute(Environment.PlcObject[] frame) {
+            Environment.PlcObject x = left.execute(frame);
+            Environment.PlcObject y = right.execute(frame);
+            if (x.isLong() && y.isLong()) {
+                try {
+                    return Environment.createInteger(Math.subtractExact(x.getLong(), y.getLong()));
+                }
+                catch (ArithmeticException e) {
+                    // fall back to BigInteger arithmetic on overflow
+                }
+            }
+            return allocate(requireType(BigInteger.class, x).subtract(requireType(BigInteger.class, y)));
+        }
+    }
+
+    private final class IntMultiply extends Binary {
+
+        private IntMultiply(Node left, Node right) {
+            super(left, right);
+        }
+
+        @Override
+        public Environment.PlcObject execute(Environment.PlcObject[] frame) {
+            Environment.PlcObject x = left.execute(frame);
+            Environment.PlcObject y = right.execute(frame);
+            if (x.isLong() && y.isLong()) {
+                try {
+                    return Environment.createInteger(Math.multiplyExact(x.getLong(), y.getLong()));
+                }
+                catch (ArithmeticException e) {
+                    // fall back to BigInteger arithmetic on overflow
+                }
+            }
+            return allocate(requireType(BigInteger.class, x).multiply(requireType(BigInteger.class, y)));
+        }
+    }
+
+    private final class IntDivide extends Binary {
+
+        private IntDivide(Node left, Node right) {
+            super(left, right);
+        }
+
+        @Override
+        public Environment.PlcObject execute(Environment.PlcObject[] frame) {
+            Environment.PlcObject x = left.execute(frame);
+            Environment.PlcObject y = right.execute(frame);
+            if (y.isLong() && y.getLong() == 0) {
+                throw new RuntimeException("error");
+            }
+            else if (x.isLong() && y.isLong() && !(x.getLong() == Long.MIN_VALUE && y.getLong() == -1)) {
+                return Environment.createInteger(x.getLong() / y.getLong());
+            }
+            return allocate(requireType(BigInteger.class, x).divide(requireType(BigInteger.class, y)));
+        }
+    }
+
+    private final class IntPower extends Binary {
+
+        private IntPower(Node left, Node right) {
+            super(left, right);
+        }
+
+        @Override
+        public Environment.PlcObject execute(Environment.PlcObject[] frame) {
+            Environment.PlcObject x = left.execute(frame);
+            Environment.PlcObject y = right.execute(frame);
+            if (x.isLong() && y.isLong() && y.getLong() >= 0 && y.getLong() <= Integer.MAX_VALUE) {
+                try {
+                    return Environment.createInteger(power(x.getLong(), y.getLong()));
+                }
+                catch (ArithmeticException e) {
+                    // fall back to BigInteger arithmetic on overflow
+                }
+            }
+            BigInteger base = requireType(BigInteger.class, x);
+            int exponent = requireType(BigInteger.class, y).intValue();
+            if (budget != null) {
+                budget.reserve((long) base.bitLength() * Math.max(exponent, 0) / 8);
+            }
+            return allocate(base.pow(exponent));
+        }
+    }
+
+    private static long power(long base, long exponent) {
+        long result = 1;
+        while (exponent > 0) {
+            if ((exponent & 1) == 1) {
+                result = Math.multiplyExact(result, base);
+            }
+            exponent >>= 1;
+            if (exponent > 0) {
+                base = Math.multiplyExact(base, base);
+            }
+        }
+        return result;
+    }
+}
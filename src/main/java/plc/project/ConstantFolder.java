@@ -0,0 +1,92 @@
+package plc.project;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Folds constant binary and group expressions and propagates {@code VAL}
+ * globals initialized with literals. Folding evaluates the expression with
+ * the {@link Interpreter}, so results match runtime semantics exactly, and
+ * expressions that would fail at runtime (such as division by zero) are
+ * left in place to fail there. Expressions with Decimal operands are not
+ * folded, since the {@link Generator} emits them as {@code double}
+ * arithmetic whose results differ from the interpreter's.
+ */
+public final class ConstantFolder extends Rewriter {
+
+    private static final BigInteger INT_MIN = BigInteger.valueOf(Integer.MIN_VALUE);
+    private static final BigInteger INT_MAX = BigInteger.valueOf(Integer.MAX_VALUE);
+
+    private final Map<Environment.Variable, Ast.Expression.Literal> constants = new IdentityHashMap<>();
+    private final Interpreter interpreter = new Interpreter(new Scope(null));
+
+    @Override
+    public Ast visit(Ast.Global ast) {
+        Ast.Global global = (Ast.Global) super.visit(ast);
+        if (!global.getMutable() && global.getValue().isPresent() && global.getValue().get() instanceof Ast.Expression.Literal literal) {
+            constants.put(global.getVariable(), literal);
+        }
+        return global;
+    }
+
+    @Override
+    public Ast visit(Ast.Expression.Group ast) {
+        Ast.Expression expression = rewrite(ast.getExpression());
+        if (expression instanceof Ast.Expression.Literal) {
+            return expression;
+        }
+        else if (expression == ast.getExpression()) {
+            return ast;
+        }
+        Ast.Expression.Group group = new Ast.Expression.Group(expression);
+        group.setType(ast.getType());
+        return group;
+    }
+
+    @Override
+    public Ast visit(Ast.Expression.Binary ast) {
+        Ast.Expression left = rewrite(ast.getLeft());
+        Ast.Expression right = rewrite(ast.getRight());
+        Ast.Expression.Binary binary = left == ast.getLeft() && right == ast.getRight() ? ast : binary(ast.getOperator(), left, right, ast.getType());
+
+        if (left instanceof Ast.Expression.Literal literal) {
+            if ((ast.getOperator().equals("&&") && Boolean.FALSE.equals(literal.getLiteral())) ||
+                    (ast.getOperator().equals("||") && Boolean.TRUE.equals(literal.getLiteral()))) {
+                return literal;
+            }
+            if (right instanceof Ast.Expression.Literal) {
+                return fold(binary);
+            }
+        }
+        return binary;
+    }
+
+    @Override
+    public Ast visit(Ast.Expression.Access ast) {
+        if (ast.getOffset().isEmpty() && constants.containsKey(ast.getVariable())) {
+            Ast.Expression.Literal constant = constants.get(ast.getVariable());
+            return literal(constant.getLiteral(), constant.getType());
+        }
+        return super.visit(ast);
+    }
+
+    private Ast.Expression fold(Ast.Expression.Binary ast) {
+        if (((Ast.Expression.Literal) ast.getLeft()).getLiteral() instanceof BigDecimal ||
+                ((Ast.Expression.Literal) ast.getRight()).getLiteral() instanceof BigDecimal) {
+            return ast;
+        }
+        Object value;
+        try {
+            value = interpreter.visit(ast).getValue();
+        }
+        catch (RuntimeException e) {
+            return ast;
+        }
+        if (value instanceof BigInteger integer && (integer.compareTo(INT_MIN) < 0 || integer.compareTo(INT_MAX) > 0)) {
+            return ast;
+        }
+        return literal(value, ast.getType());
+    }
+}
@@ -0,0 +1,166 @@
+package plc.project;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Removes functions that are not reachable from {@code main}, branches of
+ * {@code IF}/{@code SWITCH} statements whose conditions are constant,
+ * {@code WHILE FALSE} loops and statements following an unconditional
+ * {@code RETURN}. Each removal is recorded in {@link #getRemoved()}.
+ */
+public final class DeadCodeEliminator extends Rewriter {
+
+    private final List<String> removed = new ArrayList<>();
+    private String function = null;
+
+    public List<String> getRemoved() {
+        return removed;
+    }
+
+    @Override
+    public Ast visit(Ast.Source ast) {
+        Ast.Source source = (Ast.Source) super.visit(ast);
+
+        Map<Environment.Function, Ast.Function> declarations = new IdentityHashMap<>();
+        for (Ast.Function declaration : source.getFunctions()) {
+            declarations.put(declaration.getFunction(), declaration);
+        }
+        Set<Ast.Function> reachable = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Ast.Function> pending = new ArrayDeque<>();
+        CallCollector roots = new CallCollector();
+        source.getGlobals().forEach(roots::visit);
+        for (Ast.Function declaration : source.getFunctions()) {
+            if (declaration.getName().equals("main") && declaration.getParameters().isEmpty()) {
+                pending.add(declaration);
+            }
+        }
+        roots.calls.stream().map(declarations::get).filter(Objects::nonNull).forEach(pending::add);
+
+        while (!pending.isEmpty()) {
+            Ast.Function current = pending.poll();
+            if (reachable.add(current)) {
+                CallCollector collector = new CallCollector();
+                collector.visit(current);
+                collector.calls.stream().map(declarations::get).filter(Objects::nonNull).forEach(pending::add);
+            }
+        }
+
+        List<Ast.Function> functions = new ArrayList<>();
+        for (Ast.Function declaration : source.getFunctions()) {
+            if (reachable.contains(declaration)) {
+                functions.add(declaration);
+            }
+            else {
+                removed.add("unreachable function " + declaration.getName() + "/" + declaration.getParameters().size());
+            }
+        }
+        if (functions.size() == source.getFunctions().size()) {
+            return source;
+        }
+        return copy(source, source.getGlobals(), functions);
+    }
+
+    @Override
+    public Ast visit(Ast.Function ast) {
+        function = ast.getName();
+        try {
+            return super.visit(ast);
+        }
+        finally {
+            function = null;
+        }
+    }
+
+    @Override
+    protected List<Ast.Statement> rewriteBlock(List<Ast.Statement> statements) {
+        List<Ast.Statement> rewritten = new ArrayList<>(statements.size());
+        boolean changed = false;
+        for (int index = 0; index < statements.size(); index++) {
+            Ast.Statement statement = statements.get(index);
+            Ast.Statement current = (Ast.Statement) visit(statement);
+            changed |= current != statement;
+
+            Optional<List<Ast.Statement>> branch = constantBranch(current);
+            if (branch.isPresent()) {
+                changed = true;
+                removed.add("constant " + (current instanceof Ast.Statement.Switch ? "SWITCH" : current instanceof Ast.Statement.While ? "WHILE" : "IF") + " in " + function);
+                if (branch.get().stream().anyMatch(s -> s instanceof Ast.Statement.Declaration)) {
+                    rewritten.add(new Ast.Statement.If(literal(Boolean.TRUE, Environment.Type.BOOLEAN), branch.get(), List.of()));
+                }
+                else {
+                    rewritten.addAll(branch.get());
+                }
+            }
+            else {
+                rewritten.add(current);
+            }
+
+            if (!rewritten.isEmpty() && terminates(rewritten.get(rewritten.size() - 1)) && index < statements.size() - 1) {
+                removed.add((statements.size() - index - 1) + " statement(s) after RETURN in " + function);
+                changed = true;
+                break;
+            }
+        }
+        return changed ? rewritten : statements;
+    }
+
+    private static Optional<List<Ast.Statement>> constantBranch(Ast.Statement statement) {
+        if (statement instanceof Ast.Statement.If ast && ast.getCondition() instanceof Ast.Expression.Literal condition) {
+            return Optional.of(Boolean.TRUE.equals(condition.getLiteral()) ? ast.getThenStatements() : ast.getElseStatements());
+        }
+        else if (statement instanceof Ast.Statement.While ast && ast.getCondition() instanceof Ast.Expression.Literal condition && Boolean.FALSE.equals(condition.getLiteral())) {
+            return Optional.of(List.of());
+        }
+        else if (statement instanceof Ast.Statement.Switch ast && ast.getCondition() instanceof Ast.Expression.Literal condition && condition.getLiteral() != null) {
+            for (Ast.Statement.Case current : ast.getCases()) {
+                if (current.getValue().isEmpty()) {
+                    return Optional.of(current.getStatements());
+                }
+                else if (!(current.getValue().get() instanceof Ast.Expression.Literal value)) {
+                    return Optional.empty();
+                }
+                else if (condition.getLiteral().equals(value.getLiteral())) {
+                    return Optional.of(current.getStatements());
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static boolean terminates(Ast.Statement statement) {
+        if (statement instanceof Ast.Statement.Return) {
+            return true;
+        }
+        else if (statement instanceof Ast.Statement.If ast) {
+            return terminates(ast.getThenStatements()) && terminates(ast.getElseStatements());
+        }
+        else if (statement instanceof Ast.Statement.Switch ast) {
+            return ast.getCases().stream().allMatch(current -> terminates(current.getStatements()));
+        }
+        return false;
+    }
+
+    private static boolean terminates(List<Ast.Statement> statements) {
+        return !statements.isEmpty() && terminates(statements.get(statements.size() - 1));
+    }
+
+    private static final class CallCollector extends Rewriter {
+
+        private final List<Environment.Function> calls = new ArrayList<>();
+
+        @Override
+        public Ast visit(Ast.Expression.Function ast) {
+            calls.add(ast.getFunction());
+            return super.visit(ast);
+        }
+    }
+}
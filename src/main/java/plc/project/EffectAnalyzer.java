@@ -0,0 +1,163 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Marks analyzed functions as pure when they do not print, assign globals,
+ * mutate list elements or read mutable variables other than their locals,
+ * and only call other pure functions. Pure functions may be memoized by the
+ * {@link Interpreter}. Run by the {@link Analyzer} once a source is analyzed.
+ */
+public final class EffectAnalyzer implements Ast.Visitor<Void> {
+
+    private final Map<Environment.Function, Ast.Function> declarations = new IdentityHashMap<>();
+    private final Map<Ast.Function, List<Ast.Function>> callees = new IdentityHashMap<>();
+    private final Set<Ast.Function> impure = Collections.newSetFromMap(new IdentityHashMap<>());
+    private Ast.Function function = null;
+
+    @Override
+    public Void visit(Ast.Source ast) {
+        for (Ast.Function declaration : ast.getFunctions()) {
+            declarations.put(declaration.getFunction(), declaration);
+        }
+        ast.getFunctions().forEach(this::visit);
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Ast.Function declaration : ast.getFunctions()) {
+                if (!impure.contains(declaration) && callees.get(declaration).stream().anyMatch(impure::contains)) {
+                    impure.add(declaration);
+                    changed = true;
+                }
+            }
+        }
+        for (Ast.Function declaration : ast.getFunctions()) {
+            declaration.setPure(!impure.contains(declaration));
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Global ast) {
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Function ast) {
+        function = ast;
+        callees.put(ast, new ArrayList<>());
+        ast.getStatements().forEach(this::visit);
+        function = null;
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Expression ast) {
+        visit(ast.getExpression());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Declaration ast) {
+        ast.getValue().ifPresent(this::visit);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Assignment ast) {
+        Ast.Expression.Access receiver = (Ast.Expression.Access) ast.getReceiver();
+        if (receiver.getOffset().isPresent() || receiver.getDepth() != Analyzer.LOCAL_DEPTH) {
+            impure.add(function);
+        }
+        receiver.getOffset().ifPresent(this::visit);
+        visit(ast.getValue());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.If ast) {
+        visit(ast.getCondition());
+        ast.getThenStatements().forEach(this::visit);
+        ast.getElseStatements().forEach(this::visit);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Switch ast) {
+        visit(ast.getCondition());
+        ast.getCases().forEach(this::visit);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Case ast) {
+        ast.getValue().ifPresent(this::visit);
+        ast.getStatements().forEach(this::visit);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.While ast) {
+        visit(ast.getCondition());
+        ast.getStatements().forEach(this::visit);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Return ast) {
+        visit(ast.getValue());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expression.Literal ast) {
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expression.Group ast) {
+        visit(ast.getExpression());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expression.Binary ast) {
+        visit(ast.getLeft());
+        visit(ast.getRight());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expression.Access ast) {
+        if (ast.getDepth() != Analyzer.LOCAL_DEPTH && (ast.getVariable().getMutable() || ast.getOffset().isPresent())) {
+            impure.add(function);
+        }
+        ast.getOffset().ifPresent(this::visit);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expression.Function ast) {
+        Ast.Function callee = declarations.get(ast.getFunction());
+        if (callee == null) {
+            impure.add(function);
+        }
+        else {
+            callees.get(function).add(callee);
+        }
+        ast.getArguments().forEach(this::visit);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expression.PlcList ast) {
+        ast.getValues().forEach(this::visit);
+        return null;
+    }
+}
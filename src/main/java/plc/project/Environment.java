@@ -1,5 +1,7 @@
 package plc.project;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -8,8 +10,68 @@ import java.util.Map;
 
 public final class Environment {
 
+    /**
+     * Wraps a runtime value. Values share the canonical type for their class
+     * and carry no scope of their own, so creating one allocates nothing but
+     * the wrapper itself. Booleans, small Integers, ASCII Characters and the
+     * empty String return preallocated objects. A {@link Rope} is wrapped as a
+     * String that is flattened on first use.
+     */
     public static PlcObject create(Object value) {
-        return new PlcObject(new Scope(null), value);
+        if (value instanceof Boolean bool) {
+            return bool ? TRUE : FALSE;
+        }
+        else if (value instanceof BigInteger integer && integer.bitLength() < Long.SIZE) {
+            long longValue = integer.longValue();
+            if (longValue >= INTEGER_CACHE_LOW && longValue <= INTEGER_CACHE_HIGH) {
+                return INTEGERS[(int) (longValue - INTEGER_CACHE_LOW)];
+            }
+            return new PlcObject(value, longValue);
+        }
+        else if (value instanceof Character character && character < CHARACTERS.length) {
+            return CHARACTERS[character];
+        }
+        else if (value instanceof String string && string.isEmpty()) {
+            return EMPTY_STRING;
+        }
+        else if (value instanceof Rope rope) {
+            return rope.length() == 0 ? EMPTY_STRING : new PlcObject(rope);
+        }
+        return new PlcObject(Type.of(value), null, value);
+    }
+
+    /**
+     * Wraps an Integer held as a {@code long}. The {@link BigInteger} value
+     * is only materialized if {@link PlcObject#getValue()} is called.
+     */
+    public static PlcObject createInteger(long value) {
+        if (value >= INTEGER_CACHE_LOW && value <= INTEGER_CACHE_HIGH) {
+            return INTEGERS[(int) (value - INTEGER_CACHE_LOW)];
+        }
+        return new PlcObject(null, value);
+    }
+
+    public static final PlcObject TRUE = new PlcObject(Type.BOOLEAN, null, Boolean.TRUE);
+    public static final PlcObject FALSE = new PlcObject(Type.BOOLEAN, null, Boolean.FALSE);
+    private static final PlcObject EMPTY_STRING = new PlcObject(Type.STRING, null, "");
+    private static final PlcObject[] CHARACTERS = new PlcObject[128];
+
+    /**
+     * Bounds of the preallocated Integer range, configurable with the
+     * {@code plc.project.integerCache.low} and {@code .high} system properties.
+     */
+    private static final int INTEGER_CACHE_LOW = Integer.getInteger("plc.project.integerCache.low", -128);
+    private static final int INTEGER_CACHE_HIGH = Math.max(INTEGER_CACHE_LOW - 1, Integer.getInteger("plc.project.integerCache.high", 1024));
+    private static final PlcObject[] INTEGERS = new PlcObject[INTEGER_CACHE_HIGH - INTEGER_CACHE_LOW + 1];
+
+    static {
+        for (char character = 0; character < CHARACTERS.length; character++) {
+            CHARACTERS[character] = new PlcObject(Type.CHARACTER, null, character);
+        }
+        for (int index = 0; index < INTEGERS.length; index++) {
+            long value = INTEGER_CACHE_LOW + index;
+            INTEGERS[index] = new PlcObject(BigInteger.valueOf(value), value);
+        }
     }
 
     public static final PlcObject NIL = new PlcObject(Type.NIL, new Scope(null), new Object() {
@@ -48,6 +110,13 @@ public final class Environment {
         public static final Type CHARACTER = new Type("Character", "char", new Scope(COMPARABLE.scope));
         public static final Type STRING = new Type("String", "String", new Scope(COMPARABLE.scope));
 
+        /**
+         * Shared type of values with no registered type, such as lists. It is
+         * deliberately not registered so that {@code Unknown} remains an
+         * invalid type name in source programs.
+         */
+        private static final Type UNKNOWN = new Type("Unknown", "Unknown", new Scope(null));
+
         private final String name;
         private final String jvmName;
         private final Scope scope;
@@ -58,6 +127,29 @@ public final class Environment {
             this.scope = scope;
         }
 
+        /**
+         * Returns the canonical type of a runtime value, or the shared unknown
+         * type if its class has no registered type.
+         */
+        public static Type of(Object value) {
+            if (value instanceof BigInteger) {
+                return INTEGER;
+            }
+            else if (value instanceof BigDecimal) {
+                return DECIMAL;
+            }
+            else if (value instanceof Boolean) {
+                return BOOLEAN;
+            }
+            else if (value instanceof String) {
+                return STRING;
+            }
+            else if (value instanceof Character) {
+                return CHARACTER;
+            }
+            return UNKNOWN;
+        }
+
         public String getName() {
             return name;
         }
@@ -92,16 +184,40 @@ public final class Environment {
 
         private final Type type;
         private final Scope scope;
-        private final Object value;
+        private final boolean isLong;
+        private final long longValue;
+        private final Rope rope;
+        private Object value;
 
         public PlcObject(Scope scope, Object value) {
-            this(new Type("Unknown", "Unknown", scope), scope, value);
+            this(Type.UNKNOWN, scope, value);
         }
 
         public PlcObject(Type type, Scope scope, Object value) {
             this.type = type;
             this.scope = scope;
             this.value = value;
+            this.isLong = false;
+            this.longValue = 0;
+            this.rope = null;
+        }
+
+        private PlcObject(Object value, long longValue) {
+            this.type = Type.INTEGER;
+            this.scope = null;
+            this.value = value;
+            this.isLong = true;
+            this.longValue = longValue;
+            this.rope = null;
+        }
+
+        private PlcObject(Rope rope) {
+            this.type = Type.STRING;
+            this.scope = null;
+            this.value = null;
+            this.isLong = false;
+            this.longValue = 0;
+            this.rope = rope;
         }
 
         public Type getType() {
@@ -109,15 +225,47 @@ public final class Environment {
         }
 
         public Object getValue() {
+            if (value == null && isLong) {
+                value = BigInteger.valueOf(longValue);
+            }
+            else if (value == null && rope != null) {
+                value = rope.toString();
+            }
             return value;
         }
 
+        /**
+         * Returns true if this object is a String, without flattening it.
+         */
+        public boolean isString() {
+            return rope != null || value instanceof String;
+        }
+
+        /**
+         * Returns the rope of a String built by concatenation, or null.
+         */
+        Rope getRope() {
+            return rope;
+        }
+
+        /**
+         * Returns true if this object is an Integer that fits in a
+         * {@code long}, in which case {@link #getLong()} is its value.
+         */
+        public boolean isLong() {
+            return isLong;
+        }
+
+        public long getLong() {
+            return longValue;
+        }
+
         @Override
         public String toString() {
             return "Object{" +
                     "type=" + type +
                     ", scope=" + scope +
-                    ", value=" + value +
+                    ", value=" + getValue() +
                     '}';
         }
 
@@ -0,0 +1,209 @@
+package plc.project;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Limits a single execution by fuel, memory, a wall-clock deadline and
+ * cancellation. One unit of fuel is charged per loop iteration and function
+ * call; the deadline and cancellation are only checked every
+ * {@value #INTERVAL} units, so a checkpoint is usually a single decrement.
+ * Memory is tracked as the approximate size of the values held by globals,
+ * frame slots and list elements: a value is charged when it is stored and
+ * credited when it is overwritten or its frame returns, so the figure roughly
+ * follows the live heap rather than growing with every value ever created. A
+ * newly created value also counts until it is stored or dropped, so a single
+ * oversized temporary still exceeds the limit. Values shared by several
+ * variables are counted once per variable. Only {@link #cancel()} may be
+ * called from another thread.
+ */
+public final class ExecutionBudget {
+
+    private static final int INTERVAL = 1024;
+
+    private long fuel = Long.MAX_VALUE;
+    private long initialFuel = Long.MAX_VALUE;
+    private long memory = Long.MAX_VALUE;
+    private long allocated = 0;
+    private long retained = 0;
+    private long peak = 0;
+    private long largest = 0;
+    private long deadline;
+    private boolean hasDeadline = false;
+    private volatile boolean cancelled = false;
+    private int countdown = 0;
+
+    /**
+     * Sets the number of loop iterations and calls the execution may perform.
+     */
+    public void setFuel(long fuel) {
+        this.fuel = fuel;
+        this.initialFuel = fuel;
+        this.countdown = 0;
+    }
+
+    /**
+     * Returns the fuel not yet consumed.
+     */
+    public long getFuel() {
+        return fuel + Math.max(countdown, 0);
+    }
+
+    /**
+     * Sets the number of bytes the values held by the execution may take at
+     * any one time.
+     */
+    public void setMemory(long bytes) {
+        this.memory = bytes;
+    }
+
+    /**
+     * Returns the fuel consumed and memory used so far.
+     */
+    public ExecutionStats getStats() {
+        return new ExecutionStats(initialFuel - getFuel(), allocated, peak, largest);
+    }
+
+    /**
+     * Sets the deadline to the given duration from now.
+     */
+    public void setTimeout(Duration timeout) {
+        this.deadline = System.nanoTime() + timeout.toNanos();
+        this.hasDeadline = true;
+    }
+
+    /**
+     * Requests the execution to stop at its next checkpoint.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Charges one unit of fuel, throwing an {@link ExecutionLimitException}
+     * if a limit has been exceeded.
+     */
+    public void tick() {
+        if (--countdown < 0) {
+            checkpoint();
+        }
+    }
+
+    /**
+     * Charges the approximate size of a newly created value, throwing an
+     * {@link ExecutionLimitException} if it does not fit in the memory limit
+     * alongside the values already held.
+     */
+    public void allocate(Object value) {
+        long bytes = sizeOf(value);
+        allocated += bytes;
+        largest = Math.max(largest, bytes);
+        use(retained + bytes);
+    }
+
+    /**
+     * Throws an {@link ExecutionLimitException} if allocating the given
+     * number of bytes would exceed the memory limit, without charging them.
+     * Checked before operations whose result may be too large to compute.
+     */
+    void reserve(long bytes) {
+        if (bytes > memory - retained) {
+            throw new ExecutionLimitException("The execution exceeded its memory limit.", ExecutionLimitException.Limit.MEMORY);
+        }
+    }
+
+    /**
+     * Records that a variable, frame slot or list element holding the
+     * previous value, which may be null, now holds the given one.
+     */
+    void store(Object previous, Object value) {
+        retained = Math.max(retained - footprint(previous), 0) + footprint(value);
+        use(retained);
+    }
+
+    /**
+     * Credits the values held by a frame that has returned.
+     */
+    void release(Environment.PlcObject[] frame) {
+        for (Environment.PlcObject value : frame) {
+            retained -= footprint(value);
+        }
+        retained = Math.max(retained, 0);
+    }
+
+    private void use(long bytes) {
+        if (bytes > memory) {
+            throw new ExecutionLimitException("The execution exceeded its memory limit.", ExecutionLimitException.Limit.MEMORY);
+        }
+        peak = Math.max(peak, bytes);
+    }
+
+    /**
+     * Estimates the size of a held value, counting the whole text of a rope
+     * rather than the part its concatenation appended, and an Integer that
+     * fits in a {@code long} the same however it is represented.
+     */
+    private static long footprint(Object value) {
+        if (value instanceof Environment.PlcObject object) {
+            if (object.isLong()) {
+                return 16;
+            }
+            else if (object.getRope() != null) {
+                return 40 + 2L * object.getRope().length();
+            }
+            value = object.getValue();
+        }
+        if (value instanceof BigInteger integer && integer.bitLength() < 64) {
+            return 16;
+        }
+        return value == null ? 0 : sizeOf(value);
+    }
+
+    /**
+     * Estimates the shallow size of a value on a 64-bit JVM with compressed
+     * references. Elements of a list are charged when they are created.
+     */
+    static long sizeOf(Object value) {
+        if (value instanceof String string) {
+            return 40 + 2L * string.length();
+        }
+        else if (value instanceof Rope rope) {
+            return rope.bytes();
+        }
+        else if (value instanceof TypedList list) {
+            return list.bytes();
+        }
+        else if (value instanceof List<?> list) {
+            return 40 + 4L * list.size();
+        }
+        else if (value instanceof BigInteger integer) {
+            return 56 + integer.bitLength() / 8;
+        }
+        else if (value instanceof BigDecimal decimal) {
+            return 96 + decimal.unscaledValue().bitLength() / 8;
+        }
+        return 16;
+    }
+
+    private void checkpoint() {
+        if (cancelled) {
+            throw new ExecutionLimitException("The execution was cancelled.", ExecutionLimitException.Limit.CANCELLED);
+        }
+        else if (hasDeadline && System.nanoTime() - deadline >= 0) {
+            throw new ExecutionLimitException("The execution exceeded its deadline.", ExecutionLimitException.Limit.DEADLINE);
+        }
+        else if (fuel <= 0) {
+            countdown = 0;
+            throw new ExecutionLimitException("The execution ran out of fuel.", ExecutionLimitException.Limit.FUEL);
+        }
+        int units = (int) Math.min(INTERVAL, fuel);
+        fuel -= units;
+        countdown = units - 1;
+    }
+}
@@ -0,0 +1,28 @@
+package plc.project;
+
+/**
+ * Thrown when an execution exceeds a limit of its {@link ExecutionBudget}.
+ */
+public final class ExecutionLimitException extends RuntimeException {
+
+    public enum Limit {
+        FUEL,
+        DEADLINE,
+        CANCELLED,
+        MEMORY
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    private final Limit limit;
+
+    public ExecutionLimitException(String message, Limit limit) {
+        super(message);
+        this.limit = limit;
+    }
+
+    public Limit getLimit() {
+        return limit;
+    }
+
+}
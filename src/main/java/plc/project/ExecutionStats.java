@@ -0,0 +1,56 @@
+package plc.project;
+
+/**
+ * Resource usage of an execution, as charged to its {@link ExecutionBudget}.
+ */
+public final class ExecutionStats {
+
+    private final long fuel;
+    private final long allocated;
+    private final long peak;
+    private final long largest;
+
+    public ExecutionStats(long fuel, long allocated, long peak, long largest) {
+        this.fuel = fuel;
+        this.allocated = allocated;
+        this.peak = peak;
+        this.largest = largest;
+    }
+
+    /**
+     * Returns the number of loop iterations and calls performed.
+     */
+    public long getFuel() {
+        return fuel;
+    }
+
+    /**
+     * Returns the approximate number of bytes allocated in total, including
+     * values that are no longer reachable.
+     */
+    public long getAllocated() {
+        return allocated;
+    }
+
+    /**
+     * Returns the approximate high-water mark in bytes of the values held at
+     * once, which is what the memory limit applies to.
+     */
+    public long getPeak() {
+        return peak;
+    }
+
+    /**
+     * Returns the approximate size in bytes of the largest single value
+     * allocated.
+     */
+    public long getLargest() {
+        return largest;
+    }
+
+    @Override
+    public String toString() {
+        return "ExecutionStats{fuel=" + fuel + ", allocated=" + allocated + ", peak=" + peak + ", largest=" + largest + "}";
+    }
+
+}
@@ -0,0 +1,54 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class FunctionTable {
+
+    private final Map<Signature, Integer> slots = new HashMap<>();
+    private final List<Signature> signatures = new ArrayList<>();
+
+    public int bind(Signature signature) {
+        Integer slot = slots.get(signature);
+        if (slot == null) {
+            slot = signatures.size();
+            signatures.add(signature);
+            slots.put(signature, slot);
+        }
+        return slot;
+    }
+
+    public Signature getSignature(int slot) {
+        return signatures.get(slot);
+    }
+
+    public int size() {
+        return signatures.size();
+    }
+
+    @Override
+    public String toString() {
+        return "FunctionTable{" +
+                "signatures=" + signatures +
+                '}';
+    }
+
+    public record Signature(String name, int arity) {
+
+        /**
+         * Creates the signature. Signatures compare by value, so they are not
+         * interned; a global table would keep the name of every function of
+         * every source ever analyzed.
+         */
+        public static Signature of(String name, int arity) {
+            return new Signature(name, arity);
+        }
+
+        @Override
+        public String toString() {
+            return name + "/" + arity;
+        }
+    }
+}
@@ -5,18 +5,46 @@ import java.math.BigInteger;
 import java.math.MathContext;
 import java.math.RoundingMode;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
+
+/**
+ * Evaluates an AST directly. An interpreter holds the state of one execution
+ * and is not thread-safe; use a {@link Program} to run an analyzed source
+ * from several threads.
+ */
 public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
 
+    /**
+     * Returned by a statement that executed a {@code RETURN}, leaving the value
+     * in {@link #returned}, or for a tail call the arguments in
+     * {@link #tailArguments}. Other statements return {@link Environment#NIL}.
+     */
+    private static final Environment.PlcObject RETURN = new Environment.PlcObject(Environment.Type.NIL, null, "RETURN");
+
     private Scope scope = new Scope(null);
+    private Environment.Variable[] globals;
+    private Environment.PlcObject[] frame;
+    private Environment.Function[] functions;
+    private CallSite[] sites;
+    private final Map<Ast.Expression.Function, CallSite> unbound = new IdentityHashMap<>();
+    private Environment.PlcObject returned;
+    private List<Environment.PlcObject> tailArguments;
+    private int memoization = 0;
+    private boolean primitive = true;
+    private ExecutionBudget budget;
+    private OutputChannel output = OutputChannel.system();
 
     public Interpreter(Scope parent) {
         scope = new Scope(parent);
         scope.defineFunction("print", 1, args -> {
-            System.out.println(args.get(0).getValue());
+            output.println(args.get(0).getValue());
             return Environment.NIL;
         });
     }
@@ -25,24 +53,73 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
         return scope;
     }
 
+    public void setMemoization(int capacity) {
+        this.memoization = capacity;
+    }
+
+    /**
+     * Limits this execution by the budget, which is charged on every loop
+     * iteration and function call, and for every string, list and big number
+     * created by a list literal or an operator. Values stored in variables
+     * and list elements are credited back when overwritten or when their
+     * frame returns. Null removes the limits.
+     */
+    public void setBudget(ExecutionBudget budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Sends the output of {@code print} to the channel, which is flushed when
+     * a source finishes executing. Defaults to {@link OutputChannel#system()}.
+     */
+    public void setOutput(OutputChannel output) {
+        this.output = output;
+    }
+
+    /**
+     * Enables evaluating Integer operations on {@code long} operands, falling
+     * back to {@link BigInteger} arithmetic on overflow. Enabled by default.
+     */
+    public void setPrimitiveArithmetic(boolean enabled) {
+        this.primitive = enabled;
+    }
+
     @Override
     public Environment.PlcObject visit(Ast.Source ast) {
+        try {
+            define(ast);
+
+            Environment.Function current = scope.lookupFunction("main", 0);
+
+            if (current != null) {
+                return current.invoke(List.of());
+            }
+            else {
+                throw new RuntimeException("error");
+            }
+        } finally {
+            output.flush();
+        }
+    }
 
+    /**
+     * Initializes the globals and defines the functions of the source in this
+     * interpreter's scope, without calling {@code main}.
+     */
+    void define(Ast.Source ast) {
+        if (!ast.getGlobals().isEmpty() && ast.getGlobals().get(0).getSlot() >= 0) {
+            globals = new Environment.Variable[ast.getGlobals().size()];
+        }
+        if (ast.getFunctionTable() != null) {
+            functions = new Environment.Function[ast.getFunctionTable().size()];
+            sites = new CallSite[ast.getFunctionTable().size()];
+        }
         for (Ast.Global global : ast.getGlobals()) {
             visit(global);
         }
         for (Ast.Function function : ast.getFunctions()) {
             visit(function);
         }
-
-        Environment.Function current = scope.lookupFunction("main", 0);
-
-        if (current != null) {
-            return current.invoke(List.of());
-        }
-        else {
-            throw new RuntimeException("error");
-        }
     }
 
     @Override
@@ -54,35 +131,100 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
             current = visit(ast.getValue().get());
         }
 
-        scope.defineVariable(ast.getName(), false, current);
+        if (budget != null) {
+            budget.store(null, current);
+        }
+        Environment.Variable variable = scope.defineVariable(ast.getName(), ast.getName(), Environment.Type.ANY, ast.getMutable(), current);
+        if (globals != null && ast.getSlot() >= 0) {
+            globals[ast.getSlot()] = variable;
+        }
         return Environment.NIL;
     }
 
     @Override
     public Environment.PlcObject visit(Ast.Function ast) {
         Scope first = scope;
-        scope.defineFunction(ast.getName(), ast.getParameters().size(), args -> {
-            Scope second = scope;
-            scope = new Scope(first);
-            for (int index = 0; index < ast.getParameters().size(); index++) {
-                scope.defineVariable(ast.getParameters().get(index), true, args.get(index));
+        Memo memo = ast.isPure() && memoization > 0 ? new Memo(memoization) : null;
+        Environment.Function defined = scope.defineFunction(ast.getName(), ast.getParameters().size(), args -> {
+            List<Object> key = memo != null ? memo.key(args) : null;
+            if (key != null) {
+                Environment.PlcObject cached = memo.get(key);
+                if (cached != null) {
+                    return cached;
+                }
+                Environment.PlcObject result = invoke(ast, first, args);
+                memo.put(key, result);
+                return result;
             }
+            return invoke(ast, first, args);
+        });
+        if (functions != null && ast.getSlot() >= 0) {
+            functions[ast.getSlot()] = defined;
+        }
+        return Environment.NIL;
+    }
 
-            try {
-                ast.getStatements().forEach(this::visit);
+    /**
+     * Runs the function body, looping instead of recursing when it returns a
+     * tail call to itself so the Java stack does not grow.
+     */
+    private Environment.PlcObject invoke(Ast.Function ast, Scope first, List<Environment.PlcObject> args) {
+        Scope second = scope;
+        Environment.PlcObject[] caller = frame;
+        try {
+            while (true) {
+                if (budget != null) {
+                    budget.tick();
+                }
+                enter(ast, first, args);
+                if (block(ast.getStatements()) != RETURN) {
+                    return Environment.NIL;
+                }
+                else if (tailArguments == null) {
+                    Environment.PlcObject value = returned;
+                    returned = null;
+                    return value;
+                }
+                args = tailArguments;
+                tailArguments = null;
+                release(caller);
             }
+        }
+        finally {
+            release(caller);
+            scope = second;
+        }
+    }
 
-            catch (Return returnValue) {
-                return returnValue.value;
-            }
+    /**
+     * Drops the frame of the returning call in favor of its caller's,
+     * crediting its values to the budget.
+     */
+    private void release(Environment.PlcObject[] caller) {
+        if (budget != null && frame != null && frame != caller) {
+            budget.release(frame);
+        }
+        frame = caller;
+    }
 
-            finally {
-                scope = second;
+    private void enter(Ast.Function ast, Scope first, List<Environment.PlcObject> args) {
+        if (ast.getFrameSize() >= 0) {
+            scope = first;
+            frame = new Environment.PlcObject[ast.getFrameSize()];
+            for (int index = 0; index < ast.getParameters().size(); index++) {
+                frame[index] = args.get(index);
+                if (budget != null) {
+                    budget.store(null, frame[index]);
+                }
             }
-
-            return Environment.NIL;
-        });
-        return Environment.NIL;
+        }
+        else {
+            scope = new Scope(first);
+            frame = null;
+            for (int index = 0; index < ast.getParameters().size(); index++) {
+                scope.defineVariable(ast.getParameters().get(index), true, args.get(index));
+            }
+        }
     }
 
     @Override
@@ -94,8 +236,19 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
     @Override
     public Environment.PlcObject visit(Ast.Statement.Declaration ast) {
 
-        if (ast.getValue().isPresent()) {
+        if (ast.getSlot() >= 0 && frame != null) {
+            Environment.PlcObject current = ast.getValue().isPresent() ? visit(ast.getValue().get()) : Environment.NIL;
+            if (budget != null) {
+                budget.store(frame[ast.getSlot()], current);
+            }
+            frame[ast.getSlot()] = current;
+        }
+
+        else if (ast.getValue().isPresent()) {
             Environment.PlcObject current = visit(ast.getValue().get());
+            if (budget != null) {
+                budget.store(null, current);
+            }
             scope.defineVariable(ast.getName(), true, current);
         }
 
@@ -114,18 +267,33 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
         }
 
         String toChange = current.getName();
-        Environment.Variable curVar = scope.lookupVariable(toChange);
+        Environment.Variable curVar = null;
 
-        if (!curVar.getMutable()) {
+        if (current.getDepth() == Analyzer.GLOBAL_DEPTH && globals != null) {
+            curVar = globals[current.getSlot()];
+        }
+        else if (current.getDepth() != Analyzer.LOCAL_DEPTH || frame == null) {
+            curVar = scope.lookupVariable(toChange);
+        }
+
+        if (curVar != null && !curVar.getMutable()) {
             throw new RuntimeException("error" + toChange);
         }
 
         Environment.PlcObject toTrack = visit(ast.getValue());
 
         if (current.getOffset().isPresent()) {
-            Object forList = curVar.getValue().getValue();
+            Object forList = (curVar != null ? curVar.getValue() : frame[current.getSlot()]).getValue();
+
+            if (forList instanceof TypedList typed) {
+                int index = index(visit(current.getOffset().get()), typed.size());
+                if (budget != null) {
+                    budget.store(typed.get(index), toTrack);
+                }
+                typed.store(index, toTrack);
+            }
 
-            if (forList instanceof List) {
+            else if (forList instanceof List) {
                 Environment.PlcObject updatedObject = visit(current.getOffset().get());
                 List<Object> updatedList = (List<Object>) forList;
 
@@ -135,6 +303,9 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
                     if (index >= updatedList.size() || index < 0) {
                         throw new RuntimeException("error" + index);
                     }
+                    if (budget != null) {
+                        budget.store(updatedList.get(index), toTrack);
+                    }
                     updatedList.set(index, toTrack.getValue());
 
                 }
@@ -149,10 +320,20 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
             }
         }
 
-        else {
+        else if (curVar != null) {
+            if (budget != null) {
+                budget.store(curVar.getValue(), toTrack);
+            }
             curVar.setValue(toTrack);
         }
 
+        else {
+            if (budget != null) {
+                budget.store(frame[current.getSlot()], toTrack);
+            }
+            frame[current.getSlot()] = toTrack;
+        }
+
         return Environment.NIL;
     }
 
@@ -160,30 +341,31 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
     public Environment.PlcObject visit(Ast.Statement.If ast) {
         Environment.PlcObject first = visit(ast.getCondition());
         requireType(Boolean.class, first);
-        scope = new Scope(scope);
+        Scope ogScope = scope;
+        if (frame == null) {
+            scope = new Scope(scope);
+        }
         if (first.getValue().equals(Boolean.TRUE)) {
 
             try {
-                ast.getThenStatements().forEach(this::visit);
+                return block(ast.getThenStatements());
             }
 
             finally {
-                scope = scope.getParent();
+                scope = ogScope;
             }
         }
 
         else {
 
             try {
-                ast.getElseStatements().forEach(this::visit);
+                return block(ast.getElseStatements());
             }
 
             finally {
-                scope = scope.getParent();
+                scope = ogScope;
             }
         }
-
-        return Environment.NIL;
     }
 
     @Override
@@ -192,27 +374,28 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
         Environment.PlcObject current = visit(ast.getCondition());
         boolean forToggle = false;
         Scope ogScope = scope;
-        scope = new Scope(scope);
+        if (frame == null) {
+            scope = new Scope(scope);
+        }
 
         try {
+            if (ast.getTable() != null) {
+                Integer index = ast.getTable().get(current.getValue());
+                return block(ast.getCases().get(index != null ? index : ast.getCases().size() - 1).getStatements());
+            }
+
             for (Ast.Statement.Case forVar : ast.getCases()) {
 
                 if (forVar.getValue().isPresent()) {
                     Environment.PlcObject keepTrack = visit(forVar.getValue().get());
                     if (current.getValue().equals(keepTrack.getValue())) {
-                        for (Ast.Statement statement : forVar.getStatements()) {
-                            visit(statement);
-                        }
-                        return Environment.NIL;
+                        return block(forVar.getStatements());
                     }
                 }
 
                 else {
                     if (!forToggle) {
-                        for (Ast.Statement statement : forVar.getStatements()) {
-                            visit(statement);
-                        }
-                        return Environment.NIL;
+                        return block(forVar.getStatements());
                     }
                 }
             }
@@ -227,19 +410,18 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
 
     @Override
     public Environment.PlcObject visit(Ast.Statement.Case ast) {
-        for (Ast.Statement current : ast.getStatements()) {
-            visit(current);
-        }
-
-        return Environment.NIL;
+        return block(ast.getStatements());
     }
 
     @Override
     public Environment.PlcObject visit(Ast.Statement.While ast) {
 
         while (requireType(Boolean.class, visit(ast.getCondition()))) {
-            for (Ast.Statement current : ast.getStatements()) {
-                visit(current);
+            if (budget != null) {
+                budget.tick();
+            }
+            if (block(ast.getStatements()) == RETURN) {
+                return RETURN;
             }
         }
 
@@ -248,7 +430,30 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
 
     @Override
     public Environment.PlcObject visit(Ast.Statement.Return ast) {
-        throw new Return(visit(ast.getValue()));
+        if (ast.isTail()) {
+            List<Ast.Expression> arguments = ((Ast.Expression.Function) ast.getValue()).getArguments();
+            Environment.PlcObject[] values = new Environment.PlcObject[arguments.size()];
+            for (int index = 0; index < values.length; index++) {
+                values[index] = visit(arguments.get(index));
+            }
+            tailArguments = Arrays.asList(values);
+            return RETURN;
+        }
+        returned = visit(ast.getValue());
+        return RETURN;
+    }
+
+    /**
+     * Executes statements until one returns {@link #RETURN}, which is passed
+     * on to the enclosing statements up to the function body.
+     */
+    private Environment.PlcObject block(List<Ast.Statement> statements) {
+        for (Ast.Statement statement : statements) {
+            if (visit(statement) == RETURN) {
+                return RETURN;
+            }
+        }
+        return Environment.NIL;
     }
 
     @Override
@@ -299,16 +504,20 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
             case "+": {
                 Environment.PlcObject forLeft = visit(ast.getLeft());
                 Environment.PlcObject forRight = visit(ast.getRight());
-                if (forLeft.getValue() instanceof String || forRight.getValue() instanceof String) {
-                    return Environment.create("" + forLeft.getValue() + forRight.getValue());
+                Environment.PlcObject result = primitive(forInitials, forLeft, forRight);
+                if (result != null) {
+                    return result;
+                }
+                if (forLeft.isString() || forRight.isString()) {
+                    return allocate(Rope.concat(forLeft, forRight));
                 }
                 else if (forLeft.getValue() instanceof BigInteger) {
                     requireType(BigInteger.class, forRight);
-                    return Environment.create(((BigInteger) forLeft.getValue()).add((BigInteger) forRight.getValue()));
+                    return allocate(((BigInteger) forLeft.getValue()).add((BigInteger) forRight.getValue()));
                 }
                 else if (forLeft.getValue() instanceof BigDecimal) {
                     requireType(BigDecimal.class, forRight);
-                    return Environment.create(((BigDecimal) forLeft.getValue()).add((BigDecimal) forRight.getValue()));
+                    return allocate(((BigDecimal) forLeft.getValue()).add((BigDecimal) forRight.getValue()));
                 }
                 else {
                     throw new RuntimeException("error");
@@ -320,16 +529,20 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
             case ">": {
                 Environment.PlcObject forLeft = visit(ast.getLeft());
                 Environment.PlcObject forRight = visit(ast.getRight());
+                Environment.PlcObject result = primitive(forInitials, forLeft, forRight);
+                if (result != null) {
+                    return result;
+                }
                 requireType(forLeft.getValue().getClass(), forRight);
                 Comparable leftSide = requireType(Comparable.class, forLeft);
                 Comparable rightSide = requireType(Comparable.class, forRight);
                 int compVal;
                 compVal = leftSide.compareTo(rightSide);
                 if ((compVal < 0 && forInitials.equals("<")) || (compVal > 0 && forInitials.equals(">"))) {
-                    return Environment.create(Boolean.TRUE);
+                    return Environment.TRUE;
                 }
                 else {
-                    return Environment.create(Boolean.FALSE);
+                    return Environment.FALSE;
                 }
             }
 
@@ -337,6 +550,10 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
             case "==": {
                 Environment.PlcObject forLeft = visit(ast.getLeft());
                 Environment.PlcObject forRight = visit(ast.getRight());
+                Environment.PlcObject result = primitive(forInitials, forLeft, forRight);
+                if (result != null) {
+                    return result;
+                }
                 return Environment.create(Objects.equals(forLeft.getValue(), forRight.getValue()));
             }
 
@@ -344,6 +561,10 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
             case "!=": {
                 Environment.PlcObject forLeft = visit(ast.getLeft());
                 Environment.PlcObject forRight = visit(ast.getRight());
+                Environment.PlcObject result = primitive(forInitials, forLeft, forRight);
+                if (result != null) {
+                    return result;
+                }
                 return Environment.create(!Objects.equals(forLeft.getValue(), forRight.getValue()));
             }
 
@@ -352,22 +573,26 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
             case "-": {
                 Environment.PlcObject forLeft = visit(ast.getLeft());
                 Environment.PlcObject forRight = visit(ast.getRight());
+                Environment.PlcObject result = primitive(forInitials, forLeft, forRight);
+                if (result != null) {
+                    return result;
+                }
                 if (forLeft.getValue() instanceof BigDecimal) {
                     requireType(BigDecimal.class, forRight);
                     if (forInitials.equals("*")) {
-                        return Environment.create(((BigDecimal) forLeft.getValue()).multiply((BigDecimal) forRight.getValue()));
+                        return allocate(((BigDecimal) forLeft.getValue()).multiply((BigDecimal) forRight.getValue()));
                     }
                     else {
-                        return Environment.create(((BigDecimal) forLeft.getValue()).subtract((BigDecimal) forRight.getValue()));
+                        return allocate(((BigDecimal) forLeft.getValue()).subtract((BigDecimal) forRight.getValue()));
                     }
                 }
                 else if (forLeft.getValue() instanceof BigInteger) {
                     requireType(BigInteger.class, forRight);
                     if (forInitials.equals("*")) {
-                        return Environment.create(((BigInteger) forLeft.getValue()).multiply((BigInteger) forRight.getValue()));
+                        return allocate(((BigInteger) forLeft.getValue()).multiply((BigInteger) forRight.getValue()));
                     }
                     else {
-                        return Environment.create(((BigInteger) forLeft.getValue()).subtract((BigInteger) forRight.getValue()));
+                        return allocate(((BigInteger) forLeft.getValue()).subtract((BigInteger) forRight.getValue()));
                     }
                 }
                 else {
@@ -379,12 +604,21 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
             case "^": {
                 Environment.PlcObject forLeft = visit(ast.getLeft());
                 Environment.PlcObject forRight = visit(ast.getRight());
+                Environment.PlcObject result = primitive(forInitials, forLeft, forRight);
+                if (result != null) {
+                    return result;
+                }
                 requireType(BigInteger.class, forRight);
                 if (forLeft.getValue() instanceof BigDecimal) {
-                    return Environment.create(((BigDecimal) forLeft.getValue()).pow(((BigInteger) forRight.getValue()).intValue(), MathContext.DECIMAL64));
+                    return allocate(((BigDecimal) forLeft.getValue()).pow(((BigInteger) forRight.getValue()).intValue(), MathContext.DECIMAL64));
                 }
                 else if (forLeft.getValue() instanceof BigInteger) {
-                    return Environment.create(((BigInteger) forLeft.getValue()).pow(((BigInteger) forRight.getValue()).intValue()));
+                    BigInteger base = (BigInteger) forLeft.getValue();
+                    int exponent = ((BigInteger) forRight.getValue()).intValue();
+                    if (budget != null) {
+                        budget.reserve((long) base.bitLength() * Math.max(exponent, 0) / 8);
+                    }
+                    return allocate(base.pow(exponent));
                 }
                 else {
                     throw new RuntimeException("error");
@@ -395,16 +629,20 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
             case "/": {
                 Environment.PlcObject forLeft = visit(ast.getLeft());
                 Environment.PlcObject forRight = visit(ast.getRight());
+                Environment.PlcObject result = primitive(forInitials, forLeft, forRight);
+                if (result != null) {
+                    return result;
+                }
                 if (forRight.getValue().equals(BigDecimal.valueOf(0)) || forRight.getValue().equals(BigInteger.valueOf(0))) {
                     throw new RuntimeException("error");
                 }
                 if (forLeft.getValue() instanceof BigDecimal) {
                     requireType(BigDecimal.class, forRight);
-                    return Environment.create(((BigDecimal) forLeft.getValue()).divide((BigDecimal) forRight.getValue(), RoundingMode.HALF_EVEN));
+                    return allocate(((BigDecimal) forLeft.getValue()).divide((BigDecimal) forRight.getValue(), RoundingMode.HALF_EVEN));
                 }
                 else if (forLeft.getValue() instanceof BigInteger) {
                     requireType(BigInteger.class, forRight);
-                    return Environment.create(((BigInteger) forLeft.getValue()).divide((BigInteger) forRight.getValue()));
+                    return allocate(((BigInteger) forLeft.getValue()).divide((BigInteger) forRight.getValue()));
                 }
                 else {
                     throw new RuntimeException("error");
@@ -417,14 +655,73 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
         }
     }
 
+    /**
+     * Evaluates a binary operation on two Integers held as {@code long}s.
+     * Returns null if either operand is not a {@code long}, primitive
+     * arithmetic is disabled, or the result is not representable, in which
+     * case the caller evaluates it with {@link BigInteger} arithmetic.
+     */
+    private Environment.PlcObject primitive(String operator, Environment.PlcObject left, Environment.PlcObject right) {
+        if (!primitive || !left.isLong() || !right.isLong()) {
+            return null;
+        }
+        long x = left.getLong();
+        long y = right.getLong();
+        try {
+            switch (operator) {
+                case "+":
+                    return Environment.createInteger(Math.addExact(x, y));
+                case "-":
+                    return Environment.createInteger(Math.subtractExact(x, y));
+                case "*":
+                    return Environment.createInteger(Math.multiplyExact(x, y));
+                case "/":
+                    if (y == 0 || (x == Long.MIN_VALUE && y == -1)) {
+                        return null;
+                    }
+                    return Environment.createInteger(x / y);
+                case "^":
+                    if (y < 0 || y > Integer.MAX_VALUE) {
+                        return null;
+                    }
+                    long power = 1;
+                    while (y > 0) {
+                        if ((y & 1) == 1) {
+                            power = Math.multiplyExact(power, x);
+                        }
+                        y >>= 1;
+                        if (y > 0) {
+                            x = Math.multiplyExact(x, x);
+                        }
+                    }
+                    return Environment.createInteger(power);
+                case "<":
+                    return x < y ? Environment.TRUE : Environment.FALSE;
+                case ">":
+                    return x > y ? Environment.TRUE : Environment.FALSE;
+                case "==":
+                    return x == y ? Environment.TRUE : Environment.FALSE;
+                case "!=":
+                    return x != y ? Environment.TRUE : Environment.FALSE;
+                default:
+                    return null;
+            }
+        }
+        catch (ArithmeticException e) {
+            return null;
+        }
+    }
+
     @Override
     public Environment.PlcObject visit(Ast.Expression.Access ast){
 
         if (ast.getOffset().isPresent()) {
-            Environment.Variable current = scope.lookupVariable(ast.getName());
-            Object forObj = current.getValue().getValue();
+            Object forObj = lookupVariable(ast).getValue();
 
-            if (forObj instanceof List<?> list) {
+            if (forObj instanceof TypedList typed) {
+                return typed.load(index(visit(ast.getOffset().get()), typed.size()));
+            }
+            else if (forObj instanceof List<?> list) {
                 Environment.PlcObject forVar = visit(ast.getOffset().get());
 
                 if (forVar.getValue() instanceof BigInteger) {
@@ -446,25 +743,123 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
             }
         }
         else {
-            return scope.lookupVariable(ast.getName()).getValue();
+            return lookupVariable(ast);
+        }
+
+    }
+
+    /**
+     * Returns the offset as an index into a list of the given size, reading
+     * it without boxing when it is held as a {@code long}.
+     */
+    private static int index(Environment.PlcObject offset, int size) {
+        long index;
+        if (offset.isLong()) {
+            index = offset.getLong();
+        }
+        else if (offset.getValue() instanceof BigInteger) {
+            index = ((BigInteger) offset.getValue()).intValueExact();
+        }
+        else {
+            throw new RuntimeException("error" + offset.getValue());
+        }
+        if (index >= size || index < 0) {
+            throw new RuntimeException("error" + index);
         }
+        return (int) index;
+    }
 
+    private Environment.PlcObject lookupVariable(Ast.Expression.Access ast) {
+        if (ast.getDepth() == Analyzer.LOCAL_DEPTH && frame != null) {
+            return frame[ast.getSlot()];
+        }
+        else if (ast.getDepth() == Analyzer.GLOBAL_DEPTH && globals != null) {
+            return globals[ast.getSlot()].getValue();
+        }
+        return scope.lookupVariable(ast.getName()).getValue();
     }
 
     @Override
     public Environment.PlcObject visit(Ast.Expression.Function ast) {
+        Environment.Function function = lookup(ast);
+        List<Ast.Expression> arguments = ast.getArguments();
+        switch (arguments.size()) {
+            case 0:
+                return call(ast, function, List.of());
+            case 1:
+                return call(ast, function, List.of(visit(arguments.get(0))));
+            case 2:
+                return call(ast, function, List.of(visit(arguments.get(0)), visit(arguments.get(1))));
+            case 3:
+                return call(ast, function, List.of(visit(arguments.get(0)), visit(arguments.get(1)), visit(arguments.get(2))));
+            default:
+                Environment.PlcObject[] values = new Environment.PlcObject[arguments.size()];
+                for (int index = 0; index < values.length; index++) {
+                    values[index] = visit(arguments.get(index));
+                }
+                return call(ast, function, Arrays.asList(values));
+        }
+    }
 
-        Environment.Function current = scope.lookupFunction(ast.getName(), ast.getArguments().size());
-        List<Environment.PlcObject> evaluatedArgs = ast.getArguments().stream().map(this::visit).collect(Collectors.toList());
-
-        return current.invoke(evaluatedArgs);
+    /**
+     * Invokes the function called at the site once its arguments have been
+     * evaluated. Overridden by {@link ProfilingInterpreter} to time calls.
+     */
+    Environment.PlcObject call(Ast.Expression.Function ast, Environment.Function function, List<Environment.PlcObject> arguments) {
+        return function.invoke(arguments);
+    }
 
+    /**
+     * Resolves the function called at this site. Functions of the source are
+     * found by slot, since nothing can shadow them. Other lookups are cached
+     * in this interpreter, by slot or for unanalyzed calls by node, until a
+     * function is defined in any scope. Functions are only defined in
+     * the global scope and the scopes above it, so the lookup does not depend
+     * on the block being executed.
+     */
+    private Environment.Function lookup(Ast.Expression.Function ast) {
+        int slot = ast.getSlot();
+        boolean bound = sites != null && slot >= 0;
+        if (bound && functions[slot] != null) {
+            return functions[slot];
+        }
+        long version = Scope.getVersion();
+        CallSite site = bound ? sites[slot] : unbound.get(ast);
+        if (site != null && site.version == version) {
+            return site.function;
+        }
+        Environment.Function function = scope.lookupFunction(ast.getName(), ast.getArguments().size());
+        site = new CallSite(version, function);
+        if (bound) {
+            sites[slot] = site;
+        }
+        else {
+            unbound.put(ast, site);
+        }
+        return function;
     }
 
     @Override
     public Environment.PlcObject visit(Ast.Expression.PlcList ast) {
+        TypedList typed = ast.hasType() ? TypedList.create(ast.getType(), ast.getValues().size()) : null;
+        if (typed != null) {
+            for (int index = 0; index < typed.size(); index++) {
+                typed.store(index, visit(ast.getValues().get(index)));
+            }
+            return allocate(typed);
+        }
         List<Object> current = ast.getValues().stream().map(this::visit).map(Environment.PlcObject::getValue).collect(Collectors.toList());
-        return Environment.create(current);
+        return allocate(current);
+    }
+
+    /**
+     * Wraps a newly created value, charging its size to the budget.
+     */
+    private Environment.PlcObject allocate(Object value) {
+        if (budget != null) {
+            budget.allocate(value);
+        }
+        return Environment.create(value);
     }
 
     private static <T> T requireType(Class<T> type, Environment.PlcObject object) {
@@ -475,13 +870,33 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
         }
     }
 
-    private static class Return extends RuntimeException {
+    private record CallSite(long version, Environment.Function function) {}
+
+    private static final class Memo extends LinkedHashMap<List<Object>, Environment.PlcObject> {
 
-        private final Environment.PlcObject value;
+        private static final long serialVersionUID = 1L;
 
-        private Return(Environment.PlcObject value) {
-            this.value = value;
+        private final int capacity;
+
+        private Memo(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
         }
 
+        private List<Object> key(List<Environment.PlcObject> args) {
+            List<Object> key = new ArrayList<>(args.size());
+            for (Environment.PlcObject arg : args) {
+                if (arg.getValue() instanceof List) {
+                    return null;
+                }
+                key.add(arg.getValue());
+            }
+            return key;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Object>, Environment.PlcObject> eldest) {
+            return size() > capacity;
+        }
     }
 }
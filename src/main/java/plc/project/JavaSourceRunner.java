@@ -0,0 +1,216 @@
+package plc.project;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.math.BigInteger;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Runs programs by compiling the {@link Generator}'s Java source in memory
+ * with {@code javax.tools}. Compiled classes are cached in a directory named
+ * by the SHA-256 of the Syntra source, the {@link #FORMAT} of the generated
+ * code and the Java runtime version, so a cached program skips both the front
+ * end and javac.
+ */
+public final class JavaSourceRunner {
+
+    private static final String MAIN = "Main";
+
+    /**
+     * The version of the generated code, which must be bumped whenever the
+     * {@link Generator} or its runtime support changes.
+     */
+    private static final int FORMAT = 1;
+
+    private final Path cache;
+
+    /**
+     * Creates a runner caching classes under the given directory, or not at
+     * all if it is null.
+     */
+    public JavaSourceRunner(Path cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Runs the Syntra program and returns the result of {@code main}.
+     */
+    public Environment.PlcObject run(String input) {
+        Path directory = cache == null ? null : cache.resolve(hash(input));
+        Map<String, byte[]> classes = directory != null && Files.isDirectory(directory) ? read(directory) : null;
+        if (classes == null) {
+            Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+            new Analyzer(new Scope(null)).visit(ast);
+            StringWriter source = new StringWriter();
+            new Generator(new PrintWriter(source)).visit(ast);
+            classes = compile(source.toString());
+            if (directory != null) {
+                write(directory, classes);
+            }
+        }
+        return invoke(classes);
+    }
+
+    /**
+     * Compiles the source of the class {@code Main} without touching the file
+     * system, returning the bytes of each class by binary name.
+     */
+    public static Map<String, byte[]> compile(String source) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new RuntimeException("No Java compiler is available in this runtime.");
+        }
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        Map<String, ByteArrayOutputStream> outputs = new HashMap<>();
+        JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///" + MAIN + ".java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        JavaFileManager manager = new ForwardingJavaFileManager<>(compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String name, JavaFileObject.Kind kind, FileObject sibling) {
+                return new SimpleJavaFileObject(URI.create("bytes:///" + name.replace('.', '/') + kind.extension), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        return outputs.computeIfAbsent(name, key -> new ByteArrayOutputStream());
+                    }
+                };
+            }
+        };
+        boolean success = compiler.getTask(null, manager, diagnostics, List.of("-nowarn"), null, List.of(file)).call();
+        if (!success) {
+            StringBuilder message = new StringBuilder("The generated source does not compile:");
+            for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                message.append(System.lineSeparator()).append(diagnostic.getMessage(null));
+            }
+            throw new RuntimeException(message.toString());
+        }
+        Map<String, byte[]> classes = new HashMap<>();
+        outputs.forEach((name, bytes) -> classes.put(name, bytes.toByteArray()));
+        return classes;
+    }
+
+    /**
+     * Loads the classes in their own loader and calls {@code main} on a new
+     * instance of {@code Main}. The static {@code Main.main} is not used since
+     * it exits the JVM with the result.
+     */
+    private static Environment.PlcObject invoke(Map<String, byte[]> classes) {
+        ClassLoader loader = new ClassLoader(ClassLoader.getPlatformClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                byte[] bytes = classes.get(name);
+                if (bytes == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                return defineClass(name, bytes, 0, bytes.length);
+            }
+        };
+        try {
+            Constructor<?> constructor = loader.loadClass(MAIN).getDeclaredConstructor();
+            constructor.setAccessible(true);
+            Method main = constructor.getDeclaringClass().getDeclaredMethod("main");
+            main.setAccessible(true);
+            return Environment.create(BigInteger.valueOf((int) main.invoke(constructor.newInstance())));
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("The compiled program could not be loaded.", e);
+        }
+    }
+
+    private static Map<String, byte[]> read(Path directory) {
+        Map<String, byte[]> classes = new HashMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".class")) {
+                    classes.put(name.substring(0, name.length() - ".class".length()), Files.readAllBytes(file));
+                }
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        return classes.containsKey(MAIN) ? classes : null;
+    }
+
+    /**
+     * Writes the classes to a staging directory that is then moved into place,
+     * so concurrent runs never observe a partial entry.
+     */
+    private static void write(Path directory, Map<String, byte[]> classes) {
+        try {
+            Files.createDirectories(directory.getParent());
+            Path staging = Files.createTempDirectory(directory.getParent(), directory.getFileName() + ".");
+            try {
+                for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                    Files.write(staging.resolve(entry.getKey() + ".class"), entry.getValue());
+                }
+                Files.move(staging, directory, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException | RuntimeException e) {
+                delete(staging, classes);
+                if (!(e instanceof IOException) || !Files.isDirectory(directory)) {
+                    throw e;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Removes an abandoned staging directory, leaving it in place if it cannot
+     * be removed so the original failure is the one reported.
+     */
+    private static void delete(Path staging, Map<String, byte[]> classes) {
+        try {
+            for (String name : classes.keySet()) {
+                Files.deleteIfExists(staging.resolve(name + ".class"));
+            }
+            Files.deleteIfExists(staging);
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static String hash(String input) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((FORMAT + ":" + Runtime.version() + ":").getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest(input.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
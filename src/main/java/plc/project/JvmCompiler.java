@@ -0,0 +1,574 @@
+package plc.project;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+
+import static plc.project.ClassFileWriter.*;
+
+/**
+ * Compiles an analyzed AST to a JVM class and runs it as a hidden class, so
+ * hot programs are optimized by the JIT like any other Java code. Functions
+ * become static methods typed by {@link Environment.Type#getJvmName()} and
+ * globals become static fields, which gives programs the same Java semantics
+ * as the {@link Generator}: Integers wrap around and Decimals are doubles.
+ */
+public final class JvmCompiler implements Ast.Visitor<Void> {
+
+    private static final String CLASS = "plc/project/SyntraProgram";
+    private static final String STRING = "Ljava/lang/String;";
+    private static final String BUILDER = "java/lang/StringBuilder";
+
+    private ClassFileWriter writer;
+    private ClassFileWriter.Code code;
+    private String[] globals;
+    private boolean[] functions;
+    private int[] locals;
+    private int temporaries;
+    private int switches;
+    private Environment.Type returnType;
+
+    public byte[] compile(Ast.Source ast) {
+        visit(ast);
+        return writer.toByteArray();
+    }
+
+    /**
+     * Compiles the AST, loads it as a hidden class and returns the result of
+     * calling {@code main}. Globals are initialized on that first call.
+     */
+    public Environment.PlcObject run(Ast.Source ast) {
+        MethodHandle main;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(compile(ast), false);
+            main = lookup.findStatic(lookup.lookupClass(), "main", MethodType.methodType(int.class));
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("The JVM backend could not load the program.", e);
+        }
+        try {
+            return Environment.create(BigInteger.valueOf((int) main.invokeExact()));
+        } catch (ExceptionInInitializerError e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public Void visit(Ast.Source ast) {
+        if (ast.getFunctionTable() == null) {
+            throw new RuntimeException("The JVM backend requires an analyzed AST.");
+        }
+        writer = new ClassFileWriter(CLASS, "java/lang/Object");
+        globals = new String[ast.getGlobals().size()];
+        functions = new boolean[ast.getFunctionTable().size()];
+        ast.getFunctions().forEach(function -> functions[function.getSlot()] = true);
+
+        code = new ClassFileWriter.Code(0);
+        ast.getGlobals().forEach(this::visit);
+        code.op(RETURN, 0);
+        writer.method(ACC_STATIC, "<clinit>", "()V", code);
+
+        ast.getFunctions().forEach(this::visit);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Global ast) {
+        boolean list = ast.getValue().isPresent() && ast.getValue().get() instanceof Ast.Expression.PlcList;
+        String descriptor = (list ? "[" : "") + descriptor(ast.getVariable().getType());
+        globals[ast.getSlot()] = descriptor;
+        writer.field(ACC_STATIC | (ast.getMutable() ? 0 : ACC_FINAL), ast.getName(), descriptor);
+        if (ast.getValue().isPresent()) {
+            visit(ast.getValue().get());
+            code.opWide(PUTSTATIC, writer.fieldRef(CLASS, ast.getName(), descriptor), list ? -1 : -size(ast.getVariable().getType()));
+        }
+        return null;
+    }
+
+    /**
+     * Parameters take the local indices the JVM assigns them; every other
+     * frame slot gets two words so Decimals fit, with switch temporaries
+     * allocated above the frame.
+     */
+    @Override
+    public Void visit(Ast.Function ast) {
+        Environment.Function function = ast.getFunction();
+        int arity = ast.getParameters().size();
+        locals = new int[Math.max(ast.getFrameSize(), arity)];
+        int index = 0;
+        for (int slot = 0; slot < locals.length; slot++) {
+            locals[slot] = index;
+            index += slot < arity ? size(function.getParameterTypes().get(slot)) : 2;
+        }
+        temporaries = index;
+        switches = 0;
+        returnType = function.getReturnType();
+
+        code = new ClassFileWriter.Code(index);
+        ast.getStatements().forEach(this::visit);
+        defaultValue(returnType);
+        code.op(returnOpcode(returnType), -size(returnType));
+        writer.method(ACC_PUBLIC | ACC_STATIC, ast.getName(), descriptor(function), code);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Expression ast) {
+        discard(ast.getExpression());
+        return null;
+    }
+
+    private void discard(Ast.Expression ast) {
+        visit(ast);
+        int size = size(ast.getType());
+        if (size > 0) {
+            code.op(size == 2 ? POP2 : POP, -size);
+        }
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Declaration ast) {
+        Environment.Type type = ast.getVariable().getType();
+        if (ast.getValue().isPresent()) {
+            visit(ast.getValue().get());
+        }
+        else {
+            defaultValue(type);
+        }
+        store(type, locals[ast.getSlot()]);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Assignment ast) {
+        Ast.Expression.Access receiver = (Ast.Expression.Access) ast.getReceiver();
+        Environment.Type type = receiver.getVariable().getType();
+        if (receiver.getDepth() == Analyzer.GLOBAL_DEPTH && !receiver.getVariable().getMutable()) {
+            throw new RuntimeException("error" + receiver.getName());
+        }
+        else if (receiver.getOffset().isPresent()) {
+            loadList(receiver);
+            visit(receiver.getOffset().get());
+            visit(ast.getValue());
+            code.op(select(type, IASTORE, DASTORE, AASTORE, BASTORE, CASTORE), -2 - size(type));
+        }
+        else if (receiver.getDepth() == Analyzer.GLOBAL_DEPTH) {
+            visit(ast.getValue());
+            code.opWide(PUTSTATIC, writer.fieldRef(CLASS, receiver.getName(), globals[receiver.getSlot()]), -size(type));
+        }
+        else {
+            visit(ast.getValue());
+            store(type, local(receiver));
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.If ast) {
+        Label otherwise = new Label();
+        Label end = new Label();
+        visit(ast.getCondition());
+        code.jump(IFEQ, otherwise, -1);
+        ast.getThenStatements().forEach(this::visit);
+        code.jump(GOTO, end, 0);
+        code.place(otherwise);
+        ast.getElseStatements().forEach(this::visit);
+        code.place(end);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Switch ast) {
+        Environment.Type type = ast.getCondition().getType();
+        int temporary = temporaries + 2 * switches++;
+        code.locals(temporary + 2);
+        visit(ast.getCondition());
+        store(type, temporary);
+
+        Label end = new Label();
+        for (Ast.Statement.Case current : ast.getCases()) {
+            if (current.getValue().isPresent()) {
+                Label next = new Label();
+                load(type, temporary);
+                visit(current.getValue().get());
+                if (type.equals(Environment.Type.DECIMAL)) {
+                    code.op(DCMPL, -3);
+                    code.jump(IFNE, next, -1);
+                }
+                else if (type.equals(Environment.Type.STRING)) {
+                    code.opWide(INVOKESTATIC, writer.methodRef("java/util/Objects", "equals", "(Ljava/lang/Object;Ljava/lang/Object;)Z"), -1);
+                    code.jump(IFEQ, next, -1);
+                }
+                else {
+                    code.jump(IF_ICMPNE, next, -2);
+                }
+                visit(current);
+                code.jump(GOTO, end, 0);
+                code.place(next);
+            }
+            else {
+                visit(current);
+            }
+        }
+        code.place(end);
+        switches--;
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Case ast) {
+        ast.getStatements().forEach(this::visit);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.While ast) {
+        Label start = new Label();
+        Label end = new Label();
+        code.place(start);
+        visit(ast.getCondition());
+        code.jump(IFEQ, end, -1);
+        ast.getStatements().forEach(this::visit);
+        code.jump(GOTO, start, 0);
+        code.place(end);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Return ast) {
+        if (returnType.equals(Environment.Type.NIL)) {
+            if (!(ast.getValue() instanceof Ast.Expression.Literal literal && literal.getLiteral() == null)) {
+                discard(ast.getValue());
+            }
+            code.op(RETURN, 0);
+        }
+        else {
+            visit(ast.getValue());
+            code.op(returnOpcode(returnType), -size(returnType));
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expression.Literal ast) {
+        Object literal = ast.getLiteral();
+        if (literal instanceof Boolean bool) {
+            push(bool ? 1 : 0);
+        }
+        else if (literal instanceof BigInteger integer) {
+            push(integer.intValue());
+        }
+        else if (literal instanceof BigDecimal decimal) {
+            code.opWide(LDC2_W, writer.doubleValue(decimal.doubleValue()), 2);
+        }
+        else if (literal instanceof Character character) {
+            push(character);
+        }
+        else if (literal instanceof String string) {
+            code.opWide(LDC_W, writer.string(string), 1);
+        }
+        else {
+            throw new RuntimeException("The JVM backend does not support the literal " + literal + ".");
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expression.Group ast) {
+        return visit(ast.getExpression());
+    }
+
+    @Override
+    public Void visit(Ast.Expression.Binary ast) {
+        Environment.Type type = ast.getLeft().getType();
+        boolean decimal = type.equals(Environment.Type.DECIMAL);
+        switch (ast.getOperator()) {
+            case "&&":
+            case "||":
+                logical(ast);
+                break;
+            case "<":
+            case ">":
+            case "==":
+            case "!=":
+                comparison(ast);
+                break;
+            case "+":
+            case "-":
+            case "*":
+            case "/":
+                if (ast.getType().equals(Environment.Type.STRING)) {
+                    concatenate(ast);
+                }
+                else {
+                    visit(ast.getLeft());
+                    visit(ast.getRight());
+                    code.op(arithmeticOpcode(ast.getOperator()) + (decimal ? 3 : 0), decimal ? -2 : -1);
+                }
+                break;
+            case "^":
+                visit(ast.getLeft());
+                if (!decimal) {
+                    code.op(I2D, 1);
+                }
+                visit(ast.getRight());
+                code.op(I2D, 1);
+                code.opWide(INVOKESTATIC, writer.methodRef("java/lang/Math", "pow", "(DD)D"), -2);
+                if (!decimal) {
+                    code.op(D2I, -1);
+                }
+                break;
+            default:
+                throw new RuntimeException("Unknown operator " + ast.getOperator() + ".");
+        }
+        return null;
+    }
+
+    private static int arithmeticOpcode(String operator) {
+        switch (operator) {
+            case "+": return IADD;
+            case "-": return ISUB;
+            case "*": return IMUL;
+            default: return IDIV;
+        }
+    }
+
+    private void logical(Ast.Expression.Binary ast) {
+        int shortCircuit = ast.getOperator().equals("&&") ? IFEQ : IFNE;
+        Label skip = new Label();
+        Label end = new Label();
+        visit(ast.getLeft());
+        code.jump(shortCircuit, skip, -1);
+        visit(ast.getRight());
+        code.jump(shortCircuit, skip, -1);
+        push(shortCircuit == IFEQ ? 1 : 0);
+        code.jump(GOTO, end, 0);
+        code.place(skip);
+        push(shortCircuit == IFEQ ? 0 : 1);
+        code.place(end);
+    }
+
+    private void comparison(Ast.Expression.Binary ast) {
+        Environment.Type type = ast.getLeft().getType();
+        String operator = ast.getOperator();
+        visit(ast.getLeft());
+        visit(ast.getRight());
+        if (type.equals(Environment.Type.DECIMAL)) {
+            code.op(operator.equals("<") ? DCMPG : DCMPL, -3);
+            condition(operator.equals("<") ? IFLT : operator.equals(">") ? IFGT : operator.equals("==") ? IFEQ : IFNE, -1);
+        }
+        else if (type.equals(Environment.Type.STRING) && (operator.equals("<") || operator.equals(">"))) {
+            code.opWide(INVOKEVIRTUAL, writer.methodRef("java/lang/String", "compareTo", "(" + STRING + ")I"), -1);
+            condition(operator.equals("<") ? IFLT : IFGT, -1);
+        }
+        else if (type.equals(Environment.Type.STRING)) {
+            code.opWide(INVOKESTATIC, writer.methodRef("java/util/Objects", "equals", "(Ljava/lang/Object;Ljava/lang/Object;)Z"), -1);
+            if (operator.equals("!=")) {
+                push(1);
+                code.op(IXOR, -1);
+            }
+        }
+        else {
+            condition(operator.equals("<") ? IF_ICMPLT : operator.equals(">") ? IF_ICMPGT : operator.equals("==") ? IF_ICMPEQ : IF_ICMPNE, -2);
+        }
+    }
+
+    /**
+     * Pushes whether the given conditional jump would be taken.
+     */
+    private void condition(int opcode, int delta) {
+        Label taken = new Label();
+        Label end = new Label();
+        code.jump(opcode, taken, delta);
+        push(0);
+        code.jump(GOTO, end, 0);
+        code.place(taken);
+        push(1);
+        code.place(end);
+    }
+
+    private void concatenate(Ast.Expression.Binary ast) {
+        code.opWide(NEW, writer.classRef(BUILDER), 1);
+        code.op(DUP, 1);
+        code.opWide(INVOKESPECIAL, writer.methodRef(BUILDER, "<init>", "()V"), -1);
+        for (Ast.Expression operand : List.of(ast.getLeft(), ast.getRight())) {
+            visit(operand);
+            String descriptor = descriptor(operand.getType());
+            code.opWide(INVOKEVIRTUAL, writer.methodRef(BUILDER, "append", "(" + descriptor + ")L" + BUILDER + ";"), -size(operand.getType()));
+        }
+        code.opWide(INVOKEVIRTUAL, writer.methodRef(BUILDER, "toString", "()" + STRING), 0);
+    }
+
+    @Override
+    public Void visit(Ast.Expression.Access ast) {
+        Environment.Type type = ast.getVariable().getType();
+        if (ast.getOffset().isPresent()) {
+            loadList(ast);
+            visit(ast.getOffset().get());
+            code.op(select(type, IALOAD, DALOAD, AALOAD, BALOAD, CALOAD), size(type) - 2);
+        }
+        else if (ast.getDepth() == Analyzer.GLOBAL_DEPTH) {
+            code.opWide(GETSTATIC, writer.fieldRef(CLASS, ast.getName(), globals[ast.getSlot()]), size(type));
+        }
+        else {
+            load(type, local(ast));
+        }
+        return null;
+    }
+
+    private void loadList(Ast.Expression.Access ast) {
+        if (ast.getDepth() != Analyzer.GLOBAL_DEPTH || ast.getSlot() < 0) {
+            throw new RuntimeException("The JVM backend does not support the list " + ast.getName() + ".");
+        }
+        code.opWide(GETSTATIC, writer.fieldRef(CLASS, ast.getName(), globals[ast.getSlot()]), 1);
+    }
+
+    private int local(Ast.Expression.Access ast) {
+        if (ast.getSlot() < 0) {
+            throw new RuntimeException("The variable " + ast.getName() + " is not resolved.");
+        }
+        return locals[ast.getSlot()];
+    }
+
+    @Override
+    public Void visit(Ast.Expression.Function ast) {
+        Environment.Function function = ast.getFunction();
+        if (functions[ast.getSlot()]) {
+            int delta = size(function.getReturnType());
+            for (Ast.Expression argument : ast.getArguments()) {
+                visit(argument);
+                delta -= size(argument.getType());
+            }
+            code.opWide(INVOKESTATIC, writer.methodRef(CLASS, ast.getName(), descriptor(function)), delta);
+        }
+        else if (ast.getName().equals("print") && ast.getArguments().size() == 1) {
+            Ast.Expression argument = ast.getArguments().get(0);
+            code.opWide(GETSTATIC, writer.fieldRef("java/lang/System", "out", "Ljava/io/PrintStream;"), 1);
+            visit(argument);
+            code.opWide(INVOKEVIRTUAL, writer.methodRef("java/io/PrintStream", "println", "(" + descriptor(argument.getType()) + ")V"), -1 - size(argument.getType()));
+        }
+        else {
+            throw new RuntimeException("The JVM backend does not support the function " + ast.getName() + "/" + ast.getArguments().size() + ".");
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expression.PlcList ast) {
+        Environment.Type type = ast.getType();
+        push(ast.getValues().size());
+        if (type.equals(Environment.Type.STRING)) {
+            code.opWide(ANEWARRAY, writer.classRef("java/lang/String"), 0);
+        }
+        else {
+            code.op(NEWARRAY, select(type, 10, 7, 0, 4, 5), 0);
+        }
+        for (int index = 0; index < ast.getValues().size(); index++) {
+            code.op(DUP, 1);
+            push(index);
+            visit(ast.getValues().get(index));
+            code.op(select(type, IASTORE, DASTORE, AASTORE, BASTORE, CASTORE), -2 - size(type));
+        }
+        return null;
+    }
+
+    private void push(int value) {
+        if (value >= -1 && value <= 5) {
+            code.op(ICONST_0 + value, 1);
+        }
+        else if (value == (byte) value) {
+            code.op(BIPUSH, value, 1);
+        }
+        else if (value == (short) value) {
+            code.opWide(SIPUSH, value & 0xFFFF, 1);
+        }
+        else {
+            code.opWide(LDC_W, writer.integer(value), 1);
+        }
+    }
+
+    private void defaultValue(Environment.Type type) {
+        if (type.equals(Environment.Type.DECIMAL)) {
+            code.op(DCONST_0, 2);
+        }
+        else if (type.equals(Environment.Type.STRING)) {
+            code.op(ACONST_NULL, 1);
+        }
+        else if (!type.equals(Environment.Type.NIL)) {
+            push(0);
+        }
+    }
+
+    private void load(Environment.Type type, int index) {
+        code.locals(index + size(type));
+        code.op(localOpcode(type, ILOAD, DLOAD, ALOAD), wide(index), size(type));
+    }
+
+    private void store(Environment.Type type, int index) {
+        code.locals(index + size(type));
+        code.op(localOpcode(type, ISTORE, DSTORE, ASTORE), wide(index), -size(type));
+    }
+
+    private static int wide(int index) {
+        if (index > 0xFF) {
+            throw new RuntimeException("The JVM backend does not support functions with this many variables.");
+        }
+        return index;
+    }
+
+    private static int localOpcode(Environment.Type type, int integer, int decimal, int reference) {
+        descriptor(type);
+        return type.equals(Environment.Type.DECIMAL) ? decimal : type.equals(Environment.Type.STRING) ? reference : integer;
+    }
+
+    /**
+     * Selects the array opcode, or array type code, for the element type.
+     */
+    private static int select(Environment.Type type, int integer, int decimal, int string, int bool, int character) {
+        switch (descriptor(type)) {
+            case "D": return decimal;
+            case "Z": return bool;
+            case "C": return character;
+            case STRING: return string;
+            default: return integer;
+        }
+    }
+
+    private static int returnOpcode(Environment.Type type) {
+        return type.equals(Environment.Type.NIL) ? RETURN : localOpcode(type, IRETURN, DRETURN, ARETURN);
+    }
+
+    /**
+     * Returns the number of stack words a value of the type takes.
+     */
+    private static int size(Environment.Type type) {
+        return type.equals(Environment.Type.NIL) ? 0 : type.equals(Environment.Type.DECIMAL) ? 2 : 1;
+    }
+
+    private static String descriptor(Environment.Function function) {
+        StringBuilder descriptor = new StringBuilder("(");
+        function.getParameterTypes().forEach(type -> descriptor.append(descriptor(type)));
+        descriptor.append(")");
+        return descriptor.append(function.getReturnType().equals(Environment.Type.NIL) ? "V" : descriptor(function.getReturnType())).toString();
+    }
+
+    private static String descriptor(Environment.Type type) {
+        switch (type.getJvmName()) {
+            case "int": return "I";
+            case "double": return "D";
+            case "boolean": return "Z";
+            case "char": return "C";
+            case "String": return STRING;
+            default: throw new RuntimeException("The JVM backend does not support the type " + type.getName() + ".");
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package plc.project;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Hoists loop-invariant expressions out of {@code WHILE} loops and reduces
+ * Integer squares within them to multiplication. An expression is hoisted into a new
+ * local declared before the loop when it only reads literals, {@code VAL}
+ * globals and initialized locals that the loop neither assigns nor declares,
+ * and only uses operators that cannot fail at runtime, so evaluating it once
+ * even if the loop never runs does not change the program's behavior.
+ */
+public final class LoopOptimizer extends Rewriter {
+
+    private static final Set<String> TOTAL = Set.of("&&", "||", "<", ">", "==", "!=", "+", "-", "*");
+    private static final BigInteger TWO = BigInteger.valueOf(2);
+
+    private final List<Ast.Statement> hoisted = new ArrayList<>();
+    private final Set<Environment.Variable> uninitialized = Collections.newSetFromMap(new IdentityHashMap<>());
+    private int frameSize = 0;
+    private int temporaries = 0;
+    private int loops = 0;
+
+    @Override
+    public Ast visit(Ast.Function ast) {
+        frameSize = ast.getFrameSize();
+        uninitialized.clear();
+        walk(ast.getStatements(), statement -> {
+            if (statement instanceof Ast.Statement.Declaration declaration && declaration.getValue().isEmpty()) {
+                uninitialized.add(declaration.getVariable());
+            }
+        });
+        List<Ast.Statement> statements = rewriteBlock(ast.getStatements());
+        if (statements == ast.getStatements()) {
+            return ast;
+        }
+        Ast.Function function = copy(ast, statements);
+        function.setFrameSize(frameSize);
+        return function;
+    }
+
+    /**
+     * Rewrites the block, declaring the values hoisted out of each loop
+     * immediately before it.
+     */
+    @Override
+    protected List<Ast.Statement> rewriteBlock(List<Ast.Statement> statements) {
+        List<Ast.Statement> rewritten = new ArrayList<>(statements.size());
+        boolean changed = false;
+        for (Ast.Statement statement : statements) {
+            Ast.Statement current = (Ast.Statement) visit(statement);
+            if (current instanceof Ast.Statement.While && !hoisted.isEmpty()) {
+                rewritten.addAll(hoisted);
+                hoisted.clear();
+                changed = true;
+            }
+            changed |= current != statement;
+            rewritten.add(current);
+        }
+        return changed ? rewritten : statements;
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.While ast) {
+        loops++;
+        Ast.Statement.While loop;
+        try {
+            loop = (Ast.Statement.While) super.visit(ast);
+        } finally {
+            loops--;
+        }
+        if (frameSize < 0) {
+            return loop;
+        }
+        Set<Environment.Variable> variant = Collections.newSetFromMap(new IdentityHashMap<>());
+        variant.addAll(uninitialized);
+        walk(loop.getStatements(), statement -> {
+            if (statement instanceof Ast.Statement.Assignment assignment) {
+                variant.add(((Ast.Expression.Access) assignment.getReceiver()).getVariable());
+            }
+            else if (statement instanceof Ast.Statement.Declaration declaration) {
+                variant.add(declaration.getVariable());
+            }
+        });
+        Hoister hoister = new Hoister(variant);
+        Ast.Expression condition = hoister.rewrite(loop.getCondition());
+        List<Ast.Statement> statements = hoister.rewriteBlock(loop.getStatements());
+        hoisted.addAll(hoister.declarations);
+        if (condition == loop.getCondition() && statements == loop.getStatements()) {
+            return loop;
+        }
+        return new Ast.Statement.While(condition, statements);
+    }
+
+    /**
+     * Reduces {@code x ^ 2} to {@code x * x} inside a loop, where it runs on
+     * every iteration; elsewhere the square is left as written.
+     */
+    @Override
+    public Ast visit(Ast.Expression.Binary ast) {
+        Ast.Expression.Binary binary = (Ast.Expression.Binary) super.visit(ast);
+        if (loops > 0 && binary.getOperator().equals("^") && binary.getType().equals(Environment.Type.INTEGER) &&
+                binary.getRight() instanceof Ast.Expression.Literal exponent && TWO.equals(exponent.getLiteral()) &&
+                binary.getLeft() instanceof Ast.Expression.Access base && base.getOffset().isEmpty()) {
+            return binary("*", base, base, binary.getType());
+        }
+        return binary;
+    }
+
+    /**
+     * Calls the action on each statement, including nested ones.
+     */
+    private static void walk(List<Ast.Statement> statements, Consumer<Ast.Statement> action) {
+        for (Ast.Statement statement : statements) {
+            action.accept(statement);
+            if (statement instanceof Ast.Statement.If branch) {
+                walk(branch.getThenStatements(), action);
+                walk(branch.getElseStatements(), action);
+            }
+            else if (statement instanceof Ast.Statement.Switch selection) {
+                selection.getCases().forEach(current -> walk(current.getStatements(), action));
+            }
+            else if (statement instanceof Ast.Statement.While loop) {
+                walk(loop.getStatements(), action);
+            }
+        }
+    }
+
+    /**
+     * Replaces the invariant expressions of one loop with reads of new
+     * locals, reusing a local for structurally equal expressions.
+     */
+    private final class Hoister extends Rewriter {
+
+        private final Set<Environment.Variable> variant;
+        private final List<Ast.Statement.Declaration> declarations = new ArrayList<>();
+
+        private Hoister(Set<Environment.Variable> variant) {
+            this.variant = variant;
+        }
+
+        @Override
+        public Ast visit(Ast.Expression.Group ast) {
+            return invariant(ast) ? hoist(ast) : super.visit(ast);
+        }
+
+        @Override
+        public Ast visit(Ast.Expression.Binary ast) {
+            return invariant(ast) ? hoist(ast) : super.visit(ast);
+        }
+
+        private boolean invariant(Ast.Expression ast) {
+            if (ast instanceof Ast.Expression.Literal) {
+                return true;
+            }
+            else if (ast instanceof Ast.Expression.Access access) {
+                return access.getOffset().isEmpty() && !variant.contains(access.getVariable()) &&
+                        (access.getDepth() == Analyzer.LOCAL_DEPTH || !access.getVariable().getMutable());
+            }
+            else if (ast instanceof Ast.Expression.Group group) {
+                return invariant(group.getExpression());
+            }
+            else if (ast instanceof Ast.Expression.Binary binary) {
+                return TOTAL.contains(binary.getOperator()) && invariant(binary.getLeft()) && invariant(binary.getRight());
+            }
+            return false;
+        }
+
+        private Ast.Expression.Access hoist(Ast.Expression ast) {
+            Ast.Statement.Declaration declaration = declarations.stream()
+                    .filter(current -> current.getValue().get().equals(ast))
+                    .findFirst().orElse(null);
+            if (declaration == null) {
+                String name = "loop$" + temporaries++;
+                declaration = new Ast.Statement.Declaration(name, Optional.of(ast.getType().getName()), Optional.of(ast));
+                declaration.setVariable(new Environment.Variable(name, name, ast.getType(), true, Environment.NIL));
+                declaration.setSlot(Analyzer.LOCAL_DEPTH, frameSize++);
+                declarations.add(declaration);
+            }
+            Ast.Expression.Access access = new Ast.Expression.Access(Optional.empty(), declaration.getName());
+            access.setVariable(declaration.getVariable());
+            access.setSlot(Analyzer.LOCAL_DEPTH, declaration.getSlot());
+            return access;
+        }
+
+    }
+
+}
@@ -0,0 +1,22 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class Optimizer {
+
+    private final List<String> removed = new ArrayList<>();
+
+    public Ast.Source optimize(Ast.Source ast) {
+        Ast.Source current = (Ast.Source) new ConstantFolder().visit(ast);
+        // dead loops are removed first, so nothing is hoisted out of them
+        DeadCodeEliminator eliminator = new DeadCodeEliminator();
+        current = (Ast.Source) eliminator.visit(current);
+        removed.addAll(eliminator.getRemoved());
+        return (Ast.Source) new LoopOptimizer().visit(current);
+    }
+
+    public List<String> getRemoved() {
+        return removed;
+    }
+}
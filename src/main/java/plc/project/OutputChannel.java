@@ -0,0 +1,135 @@
+package plc.project;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Destination of the lines written by the {@code print} builtin. A channel
+ * belongs to a single execution and is not thread-safe. Buffered channels
+ * write once their buffer reaches a threshold and when the execution ends.
+ */
+public abstract class OutputChannel {
+
+    private static final int THRESHOLD = 1 << 16;
+
+    /**
+     * Writes the string form of the value followed by a line separator.
+     */
+    public abstract void println(Object value);
+
+    /**
+     * Writes any buffered output.
+     */
+    public void flush() {}
+
+    /**
+     * Returns a channel that prints each line to the current
+     * {@link System#out} immediately.
+     */
+    public static OutputChannel system() {
+        return new OutputChannel() {
+
+            @Override
+            public void println(Object value) {
+                System.out.println(value);
+            }
+
+        };
+    }
+
+    /**
+     * Returns a channel that buffers lines and writes them to the stream in
+     * the platform charset.
+     */
+    public static OutputChannel buffered(OutputStream stream) {
+        return new Buffered(THRESHOLD) {
+
+            @Override
+            void write(ByteBuffer bytes) throws IOException {
+                stream.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+                stream.flush();
+            }
+
+        };
+    }
+
+    /**
+     * Returns a channel that buffers lines and writes them directly to the
+     * file channel, without going through a stream.
+     */
+    public static OutputChannel file(FileChannel channel) {
+        return new Buffered(THRESHOLD) {
+
+            @Override
+            void write(ByteBuffer bytes) throws IOException {
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+            }
+
+        };
+    }
+
+    /**
+     * Returns a channel that keeps all output in memory.
+     */
+    public static Memory memory() {
+        return new Memory();
+    }
+
+    public static final class Memory extends OutputChannel {
+
+        private final StringBuilder text = new StringBuilder();
+
+        private Memory() {}
+
+        @Override
+        public void println(Object value) {
+            text.append(value).append(System.lineSeparator());
+        }
+
+        public String getText() {
+            return text.toString();
+        }
+
+    }
+
+    private abstract static class Buffered extends OutputChannel {
+
+        private final StringBuilder buffer = new StringBuilder();
+        private final int threshold;
+
+        private Buffered(int threshold) {
+            this.threshold = threshold;
+        }
+
+        abstract void write(ByteBuffer bytes) throws IOException;
+
+        @Override
+        public void println(Object value) {
+            buffer.append(value).append(System.lineSeparator());
+            if (buffer.length() >= threshold) {
+                flush();
+            }
+        }
+
+        @Override
+        public void flush() {
+            if (buffer.length() == 0) {
+                return;
+            }
+            try {
+                write(Charset.defaultCharset().encode(buffer.toString()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            buffer.setLength(0);
+        }
+
+    }
+
+}
@@ -0,0 +1,229 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Counts and times recorded by a {@link ProfilingInterpreter}. Functions and
+ * loops are frames of the profiled stack, with a self time that excludes
+ * nested frames. Call sites only record their count and total time. Total
+ * times count recursive invocations once. Functions are keyed by their
+ * {@link FunctionTable.Signature}, so overloads of a name are profiled apart.
+ */
+public final class Profile {
+
+    public enum Kind {
+        FUNCTION,
+        LOOP,
+        CALL_SITE
+    }
+
+    public static final class Entry {
+
+        private final String name;
+        private final Kind kind;
+        private long count = 0;
+        private long totalNanos = 0;
+        private long selfNanos = 0;
+        private int active = 0;
+
+        private Entry(String name, Kind kind) {
+            this.name = name;
+            this.kind = kind;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public long getSelfNanos() {
+            return selfNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Entry{" +
+                    "name='" + name + '\'' +
+                    ", kind=" + kind +
+                    ", count=" + count +
+                    ", totalNanos=" + totalNanos +
+                    ", selfNanos=" + selfNanos +
+                    '}';
+        }
+
+    }
+
+    private final Map<FunctionTable.Signature, Entry> functions = new HashMap<>();
+    private final Map<Ast, Entry> nodes = new IdentityHashMap<>();
+    private final Node root = new Node(null);
+    private final List<Frame> stack = new ArrayList<>();
+
+    Entry function(FunctionTable.Signature signature) {
+        return functions.computeIfAbsent(signature, key -> new Entry(key.toString(), Kind.FUNCTION));
+    }
+
+    /**
+     * Registers the name of a loop or call site, so entries are named in
+     * source order rather than in order of execution.
+     */
+    void name(Ast ast, String name, Kind kind) {
+        nodes.computeIfAbsent(ast, key -> new Entry(name, kind));
+    }
+
+    Entry node(Ast ast, Kind kind) {
+        return nodes.computeIfAbsent(ast, key -> new Entry(kind.name().toLowerCase() + "#" + nodes.size(), kind));
+    }
+
+    /**
+     * Pushes a frame for the entry onto the profiled stack, under the call
+     * tree node of the entry within its parent frame.
+     */
+    void enter(Entry entry) {
+        Node parent = stack.isEmpty() ? root : stack.get(stack.size() - 1).node;
+        Node node = parent.children.get(entry);
+        if (node == null) {
+            node = new Node(entry);
+            parent.children.put(entry, node);
+        }
+        entry.count++;
+        entry.active++;
+        stack.add(new Frame(node, System.nanoTime()));
+    }
+
+    /**
+     * Pops the innermost frame, charging its time to its entry, its parent
+     * and its stack.
+     */
+    void exit() {
+        Frame frame = stack.remove(stack.size() - 1);
+        Entry entry = frame.node.entry;
+        long elapsed = System.nanoTime() - frame.start;
+        long self = elapsed - frame.children;
+        entry.selfNanos += self;
+        if (--entry.active == 0) {
+            entry.totalNanos += elapsed;
+        }
+        if (!stack.isEmpty()) {
+            stack.get(stack.size() - 1).children += elapsed;
+        }
+        frame.node.selfNanos += self;
+    }
+
+    /**
+     * Records the start of a call at the site.
+     */
+    void begin(Entry site) {
+        site.count++;
+        site.active++;
+    }
+
+    /**
+     * Records the end of a call at the site that took the given time.
+     */
+    void end(Entry site, long elapsed) {
+        if (--site.active == 0) {
+            site.totalNanos += elapsed;
+        }
+    }
+
+    public List<Entry> getFunctions() {
+        return entries(Kind.FUNCTION);
+    }
+
+    public List<Entry> getLoops() {
+        return entries(Kind.LOOP);
+    }
+
+    public List<Entry> getCallSites() {
+        return entries(Kind.CALL_SITE);
+    }
+
+    /**
+     * Returns the entries of the kind, hottest first by self time and then
+     * by total time.
+     */
+    private List<Entry> entries(Kind kind) {
+        List<Entry> entries = new ArrayList<>();
+        (kind == Kind.FUNCTION ? functions.values() : nodes.values()).stream()
+                .filter(entry -> entry.kind == kind && entry.count > 0)
+                .forEach(entries::add);
+        entries.sort(Comparator.comparingLong(Entry::getSelfNanos).thenComparingLong(Entry::getTotalNanos).reversed());
+        return entries;
+    }
+
+    /**
+     * Returns the self time of each stack in the folded format read by
+     * flame graph tools, one {@code frame;frame;frame nanos} line per stack.
+     * Stacks are only spelled out here, so recording a frame stays constant
+     * time however deep the recursion.
+     */
+    public String toFolded() {
+        Map<String, Long> folded = new TreeMap<>();
+        root.children.values().forEach(node -> fold(node, node.entry.name, folded));
+        StringBuilder builder = new StringBuilder();
+        folded.forEach((path, nanos) -> builder.append(path).append(' ').append(nanos).append('\n'));
+        return builder.toString();
+    }
+
+    private static void fold(Node node, String path, Map<String, Long> folded) {
+        folded.merge(path, node.selfNanos, Long::sum);
+        node.children.values().forEach(child -> fold(child, path + ";" + child.entry.name, folded));
+    }
+
+    /**
+     * Returns a table of the hottest functions by self time.
+     */
+    public String toSummary(int limit) {
+        StringBuilder builder = new StringBuilder(String.format("%-32s %12s %12s %12s%n", "function", "calls", "total ms", "self ms"));
+        getFunctions().stream().limit(limit).forEach(entry -> builder.append(String.format("%-32s %12d %12.3f %12.3f%n",
+                entry.name, entry.count, entry.totalNanos / 1e6, entry.selfNanos / 1e6)));
+        return builder.toString();
+    }
+
+    /**
+     * A node of the call tree, holding the self time of its entry when
+     * reached through the nodes above it.
+     */
+    private static final class Node {
+
+        private final Entry entry;
+        private final Map<Entry, Node> children = new HashMap<>();
+        private long selfNanos = 0;
+
+        private Node(Entry entry) {
+            this.entry = entry;
+        }
+
+    }
+
+    private static final class Frame {
+
+        private final Node node;
+        private final long start;
+        private long children = 0;
+
+        private Frame(Node node, long start) {
+            this.node = node;
+            this.start = start;
+        }
+
+    }
+
+}
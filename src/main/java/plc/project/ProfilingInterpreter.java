@@ -0,0 +1,90 @@
+package plc.project;
+
+import java.util.List;
+
+/**
+ * An interpreter that records a {@link Profile} of its execution: the calls
+ * and time of each function, loop and call site. Profiling lives entirely in
+ * this subclass, so a plain {@link Interpreter} pays nothing for it. A
+ * self-recursive tail call reuses its caller's frame and is not counted as a
+ * separate call.
+ */
+public final class ProfilingInterpreter extends Interpreter {
+
+    private final Profile profile = new Profile();
+
+    public ProfilingInterpreter(Scope parent) {
+        super(parent);
+    }
+
+    public Profile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Runs the source with {@code main} as the root frame, so global
+     * initialization is charged to it.
+     */
+    @Override
+    public Environment.PlcObject visit(Ast.Source ast) {
+        profile.enter(profile.function(FunctionTable.Signature.of("main", 0)));
+        try {
+            return super.visit(ast);
+        } finally {
+            profile.exit();
+        }
+    }
+
+    /**
+     * Defines the function, naming its loops and call sites in source order
+     * after its signature.
+     */
+    @Override
+    public Environment.PlcObject visit(Ast.Function ast) {
+        FunctionTable.Signature signature = FunctionTable.Signature.of(ast.getName(), ast.getParameters().size());
+        new Rewriter() {
+
+            private int loops = 0;
+            private int sites = 0;
+
+            @Override
+            public Ast visit(Ast.Statement.While loop) {
+                profile.name(loop, signature + ":while#" + ++loops, Profile.Kind.LOOP);
+                return super.visit(loop);
+            }
+
+            @Override
+            public Ast visit(Ast.Expression.Function call) {
+                profile.name(call, signature + ":" + FunctionTable.Signature.of(call.getName(), call.getArguments().size()) + "#" + ++sites, Profile.Kind.CALL_SITE);
+                return super.visit(call);
+            }
+
+        }.visit(ast);
+        return super.visit(ast);
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ast.Statement.While ast) {
+        profile.enter(profile.node(ast, Profile.Kind.LOOP));
+        try {
+            return super.visit(ast);
+        } finally {
+            profile.exit();
+        }
+    }
+
+    @Override
+    Environment.PlcObject call(Ast.Expression.Function ast, Environment.Function function, List<Environment.PlcObject> arguments) {
+        Profile.Entry site = profile.node(ast, Profile.Kind.CALL_SITE);
+        long start = System.nanoTime();
+        profile.begin(site);
+        profile.enter(profile.function(FunctionTable.Signature.of(ast.getName(), ast.getArguments().size())));
+        try {
+            return super.call(ast, function, arguments);
+        } finally {
+            profile.exit();
+            profile.end(site, System.nanoTime() - start);
+        }
+    }
+
+}
@@ -0,0 +1,91 @@
+package plc.project;
+
+import java.util.List;
+
+/**
+ * An analyzed source that can be executed any number of times, from any
+ * number of threads at once. The AST and function table are shared, while
+ * each execution gets its own {@link Interpreter} with fresh globals and
+ * frames, so executions never observe each other's state.
+ */
+public final class Program {
+
+    private final Ast.Source ast;
+    private final Scope scope;
+
+    /**
+     * Creates a program from an analyzed source. Functions and variables of
+     * the given scope are visible to every execution, and must not be
+     * redefined while the program is running.
+     */
+    public Program(Ast.Source ast, Scope scope) {
+        if (ast.getFunctionTable() == null) {
+            throw new RuntimeException("A program requires an analyzed AST.");
+        }
+        this.ast = ast;
+        this.scope = scope;
+    }
+
+    /**
+     * Lexes, parses and analyzes the input against the given scope.
+     */
+    public static Program load(String input, Scope scope) {
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        new Analyzer(new Scope(scope)).visit(ast);
+        return new Program(ast, scope);
+    }
+
+    public Ast.Source getAst() {
+        return ast;
+    }
+
+    /**
+     * Runs {@code main} in a new execution and returns its result.
+     */
+    public Environment.PlcObject run() {
+        return run(null);
+    }
+
+    /**
+     * Runs {@code main} in a new execution limited by the budget, which must
+     * not be shared with other executions.
+     */
+    public Environment.PlcObject run(ExecutionBudget budget) {
+        return run(budget, OutputChannel.system());
+    }
+
+    /**
+     * Runs {@code main} in a new execution limited by the budget, which may
+     * be null, and sends its output to the channel. The channel is flushed
+     * when the execution ends.
+     */
+    public Environment.PlcObject run(ExecutionBudget budget, OutputChannel output) {
+        Interpreter interpreter = new Interpreter(scope);
+        interpreter.setBudget(budget);
+        interpreter.setOutput(output);
+        return interpreter.visit(ast);
+    }
+
+    /**
+     * Calls a function in a new execution, after initializing the globals,
+     * and returns its result.
+     */
+    public Environment.PlcObject call(String name, List<Environment.PlcObject> arguments) {
+        return call(name, arguments, OutputChannel.system());
+    }
+
+    /**
+     * Calls a function as {@link #call(String, List)}, sending its output to
+     * the channel.
+     */
+    public Environment.PlcObject call(String name, List<Environment.PlcObject> arguments, OutputChannel output) {
+        Interpreter interpreter = new Interpreter(scope);
+        interpreter.setOutput(output);
+        try {
+            interpreter.define(ast);
+            return interpreter.getScope().lookupFunction(name, arguments.size()).invoke(arguments);
+        } finally {
+            output.flush();
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Base class for passes that transform an analyzed AST. Each visit returns
+ * the node to use in place of the visited one; nodes whose children are
+ * unchanged are returned as-is, and rebuilt nodes keep the annotations set
+ * by the {@link Analyzer} so the result can be interpreted or generated.
+ */
+public abstract class Rewriter implements Ast.Visitor<Ast> {
+
+    protected Ast.Expression rewrite(Ast.Expression ast) {
+        return (Ast.Expression) visit(ast);
+    }
+
+    protected Optional<Ast.Expression> rewrite(Optional<Ast.Expression> ast) {
+        if (ast.isEmpty()) {
+            return ast;
+        }
+        Ast.Expression rewritten = rewrite(ast.get());
+        return rewritten == ast.get() ? ast : Optional.of(rewritten);
+    }
+
+    protected List<Ast.Statement> rewriteBlock(List<Ast.Statement> statements) {
+        List<Ast.Statement> rewritten = new ArrayList<>(statements.size());
+        boolean changed = false;
+        for (Ast.Statement statement : statements) {
+            Ast.Statement current = (Ast.Statement) visit(statement);
+            changed |= current != statement;
+            rewritten.add(current);
+        }
+        return changed ? rewritten : statements;
+    }
+
+    @Override
+    public Ast visit(Ast.Source ast) {
+        List<Ast.Global> globals = new ArrayList<>();
+        boolean changed = false;
+        for (Ast.Global global : ast.getGlobals()) {
+            Ast.Global current = (Ast.Global) visit(global);
+            changed |= current != global;
+            globals.add(current);
+        }
+        List<Ast.Function> functions = new ArrayList<>();
+        for (Ast.Function function : ast.getFunctions()) {
+            Ast.Function current = (Ast.Function) visit(function);
+            changed |= current != function;
+            functions.add(current);
+        }
+        if (!changed) {
+            return ast;
+        }
+        return copy(ast, globals, functions);
+    }
+
+    protected static Ast.Source copy(Ast.Source ast, List<Ast.Global> globals, List<Ast.Function> functions) {
+        Ast.Source source = new Ast.Source(globals, functions);
+        source.setFunctionTable(ast.getFunctionTable());
+        return source;
+    }
+
+    @Override
+    public Ast visit(Ast.Global ast) {
+        Optional<Ast.Expression> value = rewrite(ast.getValue());
+        if (value == ast.getValue()) {
+            return ast;
+        }
+        Ast.Global global = new Ast.Global(ast.getName(), ast.getTypeName(), ast.getMutable(), value);
+        global.setVariable(ast.getVariable());
+        global.setSlot(ast.getSlot());
+        return global;
+    }
+
+    @Override
+    public Ast visit(Ast.Function ast) {
+        List<Ast.Statement> statements = rewriteBlock(ast.getStatements());
+        if (statements == ast.getStatements()) {
+            return ast;
+        }
+        return copy(ast, statements);
+    }
+
+    protected static Ast.Function copy(Ast.Function ast, List<Ast.Statement> statements) {
+        Ast.Function function = new Ast.Function(ast.getName(), ast.getParameters(), ast.getParameterTypeNames(), ast.getReturnTypeName(), statements);
+        function.setFunction(ast.getFunction());
+        function.setSlot(ast.getSlot());
+        function.setFrameSize(ast.getFrameSize());
+        function.setPure(ast.isPure());
+        return function;
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.Expression ast) {
+        Ast.Expression expression = rewrite(ast.getExpression());
+        return expression == ast.getExpression() ? ast : new Ast.Statement.Expression(expression);
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.Declaration ast) {
+        Optional<Ast.Expression> value = rewrite(ast.getValue());
+        if (value == ast.getValue()) {
+            return ast;
+        }
+        Ast.Statement.Declaration declaration = new Ast.Statement.Declaration(ast.getName(), ast.getTypeName(), value);
+        declaration.setVariable(ast.getVariable());
+        declaration.setSlot(ast.getDepth(), ast.getSlot());
+        return declaration;
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.Assignment ast) {
+        Ast.Expression receiver = rewriteReceiver((Ast.Expression.Access) ast.getReceiver());
+        Ast.Expression value = rewrite(ast.getValue());
+        if (receiver == ast.getReceiver() && value == ast.getValue()) {
+            return ast;
+        }
+        return new Ast.Statement.Assignment(receiver, value);
+    }
+
+    protected Ast.Expression.Access rewriteReceiver(Ast.Expression.Access ast) {
+        Optional<Ast.Expression> offset = rewrite(ast.getOffset());
+        return offset == ast.getOffset() ? ast : copy(ast, offset);
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.If ast) {
+        Ast.Expression condition = rewrite(ast.getCondition());
+        List<Ast.Statement> thenStatements = rewriteBlock(ast.getThenStatements());
+        List<Ast.Statement> elseStatements = rewriteBlock(ast.getElseStatements());
+        if (condition == ast.getCondition() && thenStatements == ast.getThenStatements() && elseStatements == ast.getElseStatements()) {
+            return ast;
+        }
+        return new Ast.Statement.If(condition, thenStatements, elseStatements);
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.Switch ast) {
+        Ast.Expression condition = rewrite(ast.getCondition());
+        List<Ast.Statement.Case> cases = new ArrayList<>();
+        boolean changed = condition != ast.getCondition();
+        for (Ast.Statement.Case current : ast.getCases()) {
+            Ast.Statement.Case rewritten = (Ast.Statement.Case) visit(current);
+            changed |= rewritten != current;
+            cases.add(rewritten);
+        }
+        if (!changed) {
+            return ast;
+        }
+        Ast.Statement.Switch rewritten = new Ast.Statement.Switch(condition, cases);
+        rewritten.setTable(ast.getTable());
+        return rewritten;
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.Case ast) {
+        Optional<Ast.Expression> value = rewrite(ast.getValue());
+        List<Ast.Statement> statements = rewriteBlock(ast.getStatements());
+        if (value == ast.getValue() && statements == ast.getStatements()) {
+            return ast;
+        }
+        return new Ast.Statement.Case(value, statements);
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.While ast) {
+        Ast.Expression condition = rewrite(ast.getCondition());
+        List<Ast.Statement> statements = rewriteBlock(ast.getStatements());
+        if (condition == ast.getCondition() && statements == ast.getStatements()) {
+            return ast;
+        }
+        return new Ast.Statement.While(condition, statements);
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.Return ast) {
+        Ast.Expression value = rewrite(ast.getValue());
+        if (value == ast.getValue()) {
+            return ast;
+        }
+        Ast.Statement.Return returned = new Ast.Statement.Return(value);
+        returned.setTail(ast.isTail() && value instanceof Ast.Expression.Function);
+        return returned;
+    }
+
+    @Override
+    public Ast visit(Ast.Expression.Literal ast) {
+        return ast;
+    }
+
+    @Override
+    public Ast visit(Ast.Expression.Group ast) {
+        Ast.Expression expression = rewrite(ast.getExpression());
+        if (expression == ast.getExpression()) {
+            return ast;
+        }
+        Ast.Expression.Group group = new Ast.Expression.Group(expression);
+        group.setType(ast.getType());
+        return group;
+    }
+
+    @Override
+    public Ast visit(Ast.Expression.Binary ast) {
+        Ast.Expression left = rewrite(ast.getLeft());
+        Ast.Expression right = rewrite(ast.getRight());
+        if (left == ast.getLeft() && right == ast.getRight()) {
+            return ast;
+        }
+        return binary(ast.getOperator(), left, right, ast.getType());
+    }
+
+    protected static Ast.Expression.Binary binary(String operator, Ast.Expression left, Ast.Expression right, Environment.Type type) {
+        Ast.Expression.Binary binary = new Ast.Expression.Binary(operator, left, right);
+        binary.setType(type);
+        return binary;
+    }
+
+    @Override
+    public Ast visit(Ast.Expression.Access ast) {
+        Optional<Ast.Expression> offset = rewrite(ast.getOffset());
+        return offset == ast.getOffset() ? ast : copy(ast, offset);
+    }
+
+    protected static Ast.Expression.Access copy(Ast.Expression.Access ast, Optional<Ast.Expression> offset) {
+        Ast.Expression.Access access = new Ast.Expression.Access(offset, ast.getName());
+        access.setVariable(ast.getVariable());
+        access.setSlot(ast.getDepth(), ast.getSlot());
+        return access;
+    }
+
+    @Override
+    public Ast visit(Ast.Expression.Function ast) {
+        List<Ast.Expression> arguments = new ArrayList<>();
+        boolean changed = false;
+        for (Ast.Expression argument : ast.getArguments()) {
+            Ast.Expression current = rewrite(argument);
+            changed |= current != argument;
+            arguments.add(current);
+        }
+        if (!changed) {
+            return ast;
+        }
+        Ast.Expression.Function function = new Ast.Expression.Function(ast.getName(), arguments);
+        function.setFunction(ast.getFunction());
+        function.setSlot(ast.getSlot());
+        return function;
+    }
+
+    @Override
+    public Ast visit(Ast.Expression.PlcList ast) {
+        List<Ast.Expression> values = new ArrayList<>();
+        boolean changed = false;
+        for (Ast.Expression value : ast.getValues()) {
+            Ast.Expression current = rewrite(value);
+            changed |= current != value;
+            values.add(current);
+        }
+        if (!changed) {
+            return ast;
+        }
+        Ast.Expression.PlcList list = new Ast.Expression.PlcList(values);
+        list.setType(ast.getType());
+        return list;
+    }
+
+    protected static Ast.Expression.Literal literal(Object value, Environment.Type type) {
+        Ast.Expression.Literal literal = new Ast.Expression.Literal(value);
+        literal.setType(type);
+        return literal;
+    }
+}
@@ -0,0 +1,72 @@
+package plc.project;
+
+/**
+ * A String built by concatenation, held as a prefix of a shared
+ * {@link StringBuilder}. Appending to the rope that ends at the builder's
+ * current length extends the builder in place, so accumulating a string in a
+ * loop is linear rather than quadratic; appending to any other rope copies it
+ * into a new builder first. The String itself is only materialized when the
+ * value is observed through {@link Environment.PlcObject#getValue()}.
+ */
+final class Rope {
+
+    private final StringBuilder builder;
+    private final int length;
+    private final int written;
+
+    private Rope(StringBuilder builder, int length, int written) {
+        this.builder = builder;
+        this.length = length;
+        this.written = written;
+    }
+
+    /**
+     * Returns the concatenation of the string forms of both values, with the
+     * same result as {@code "" + left.getValue() + right.getValue()}.
+     */
+    static Rope concat(Environment.PlcObject left, Environment.PlcObject right) {
+        Rope prefix = left.getRope();
+        StringBuilder builder;
+        int written = 0;
+        if (prefix != null && prefix.builder.length() == prefix.length) {
+            builder = prefix.builder;
+        }
+        else {
+            builder = prefix != null
+                    ? new StringBuilder(prefix.length * 2).append(prefix.builder, 0, prefix.length)
+                    : new StringBuilder().append(left.getValue());
+            written = builder.length();
+        }
+        int start = builder.length();
+        Rope suffix = right.getRope();
+        if (suffix == null) {
+            builder.append(right.getValue());
+        }
+        else if (suffix.builder == builder) {
+            builder.append(suffix.toString());
+        }
+        else {
+            builder.append(suffix.builder, 0, suffix.length);
+        }
+        written += builder.length() - start;
+        return new Rope(builder, builder.length(), written);
+    }
+
+    /**
+     * Returns the approximate number of bytes allocated by the concatenation
+     * that created this rope.
+     */
+    long bytes() {
+        return 48 + 2L * written;
+    }
+
+    int length() {
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return builder.substring(0, length);
+    }
+
+}
@@ -4,13 +4,16 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 
 public final class Scope {
 
+    private static final AtomicLong VERSION = new AtomicLong();
+
     private final Scope parent;
     private final Map<String, Environment.Variable> variables = new HashMap<>();
-    private final Map<String, Environment.Function> functions = new HashMap<>();
+    private final Map<FunctionTable.Signature, Environment.Function> functions = new HashMap<>();
 
     public Scope(Scope parent) {
         this.parent = parent;
@@ -20,6 +23,17 @@ public final class Scope {
         return parent;
     }
 
+    /**
+     * Returns the number of functions defined in any scope. A function lookup
+     * stays valid while it is unchanged, since only a new definition can
+     * shadow the function the lookup found; a single counter makes the check
+     * constant time and can never repeat a value for a different set of
+     * definitions.
+     */
+    public static long getVersion() {
+        return VERSION.get();
+    }
+
     public void defineVariable(String name, boolean mutable, Environment.PlcObject value) {
         defineVariable(name, name, Environment.Type.ANY, mutable, value);
     }
@@ -35,41 +49,47 @@ public final class Scope {
     }
 
     public Environment.Variable lookupVariable(String name) {
-        if (variables.containsKey(name)) {
-            return variables.get(name);
-        } else if (parent != null) {
-            return parent.lookupVariable(name);
-        } else {
-            throw new RuntimeException("The variable " + name + " is not defined in this scope.");
+        for (Scope current = this; current != null; current = current.parent) {
+            Environment.Variable variable = current.variables.get(name);
+            if (variable != null) {
+                return variable;
+            }
         }
+        throw new RuntimeException("The variable " + name + " is not defined in this scope.");
     }
 
-    public void defineFunction(String name, int arity, Function<List<Environment.PlcObject>, Environment.PlcObject> function) {
+    public Environment.Function defineFunction(String name, int arity, Function<List<Environment.PlcObject>, Environment.PlcObject> function) {
         List<Environment.Type> parameterTypes = new ArrayList<>();
         for (int i = 0; i < arity; i++) {
             parameterTypes.add(Environment.Type.ANY);
         }
-        defineFunction(name, name, parameterTypes, Environment.Type.ANY, function);
+        return defineFunction(name, name, parameterTypes, Environment.Type.ANY, function);
     }
 
     public Environment.Function defineFunction(String name, String jvmName, List<Environment.Type> parameterTypes, Environment.Type returnType, java.util.function.Function<List<Environment.PlcObject>, Environment.PlcObject> function) {
-        if (functions.containsKey(name + "/" + parameterTypes.size())) {
-            throw new RuntimeException("The function " + name + "/" + parameterTypes.size() + " is already defined in this scope.");
+        FunctionTable.Signature signature = FunctionTable.Signature.of(name, parameterTypes.size());
+        if (functions.containsKey(signature)) {
+            throw new RuntimeException("The function " + signature + " is already defined in this scope.");
         } else {
             Environment.Function func = new Environment.Function(name, jvmName, parameterTypes, returnType, function);
-            functions.put(func.getName() + "/" + func.getParameterTypes().size(), func);
+            functions.put(signature, func);
+            VERSION.incrementAndGet();
             return func;
         }
     }
 
     public Environment.Function lookupFunction(String name, int arity) {
-        if (functions.containsKey(name + "/" + arity)) {
-            return functions.get(name + "/" + arity);
-        } else if (parent != null) {
-            return parent.lookupFunction(name, arity);
-        } else {
-            throw new RuntimeException("The function " + name + "/" + arity + " is not defined in this scope.");
+        return lookupFunction(FunctionTable.Signature.of(name, arity));
+    }
+
+    public Environment.Function lookupFunction(FunctionTable.Signature signature) {
+        for (Scope current = this; current != null; current = current.parent) {
+            Environment.Function function = current.functions.get(signature);
+            if (function != null) {
+                return function;
+            }
         }
+        throw new RuntimeException("The function " + signature + " is not defined in this scope.");
     }
 
     @Override
@@ -0,0 +1,123 @@
+package plc.project;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Runs programs on virtual threads, with at most a fixed number executing at
+ * once. Each execution has its own globals and frames through
+ * {@link Program}, and sources are analyzed once and then shared from a
+ * least-recently-used cache keyed by their text.
+ */
+public final class ScriptExecutor implements AutoCloseable {
+
+    private final Scope scope;
+    private final Semaphore permits;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("syntra-", 0).factory());
+    private final Map<String, Program> programs;
+
+    public ScriptExecutor(Scope scope, int concurrency) {
+        this(scope, concurrency, 256);
+    }
+
+    /**
+     * Creates an executor whose programs see the functions and variables of
+     * the given scope, running at most {@code concurrency} at a time and
+     * caching at most {@code capacity} programs.
+     */
+    public ScriptExecutor(Scope scope, int concurrency, int capacity) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("The concurrency limit must be positive.");
+        }
+        if (capacity < 0) {
+            throw new IllegalArgumentException("The cache capacity must not be negative.");
+        }
+        this.scope = scope;
+        this.permits = new Semaphore(concurrency);
+        this.programs = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Program> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached program for the source, analyzing it on first use.
+     * The source is analyzed outside the cache's lock, so a slow source never
+     * blocks other loads; if two threads race, the first program cached wins.
+     * Sources that fail to analyze are not cached.
+     */
+    public Program load(String source) {
+        synchronized (programs) {
+            Program program = programs.get(source);
+            if (program != null) {
+                return program;
+            }
+        }
+        Program program = Program.load(source, scope);
+        synchronized (programs) {
+            Program cached = programs.putIfAbsent(source, program);
+            return cached != null ? cached : program;
+        }
+    }
+
+    public CompletableFuture<Environment.PlcObject> submit(String source) {
+        return supply(() -> load(source).run());
+    }
+
+    public CompletableFuture<Environment.PlcObject> submit(Ast.Source ast) {
+        return supply(() -> new Program(ast, scope).run());
+    }
+
+    public CompletableFuture<Environment.PlcObject> submit(Program program) {
+        return supply(program::run);
+    }
+
+    /**
+     * Runs the program limited by the budget. Cancelling the returned future
+     * also cancels the budget, stopping the execution at its next checkpoint.
+     */
+    public CompletableFuture<Environment.PlcObject> submit(Program program, ExecutionBudget budget) {
+        CompletableFuture<Environment.PlcObject> result = supply(() -> program.run(budget));
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                budget.cancel();
+            }
+        });
+        return result;
+    }
+
+    public CompletableFuture<Environment.PlcObject> call(Program program, String name, List<Environment.PlcObject> arguments) {
+        return supply(() -> program.call(name, arguments));
+    }
+
+    /**
+     * Runs the task on a new virtual thread once a permit is available, so
+     * waiting executions park without holding a carrier thread.
+     */
+    private CompletableFuture<Environment.PlcObject> supply(Supplier<Environment.PlcObject> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            permits.acquireUninterruptibly();
+            try {
+                return task.get();
+            } finally {
+                permits.release();
+            }
+        }, executor);
+    }
+
+    /**
+     * Stops accepting programs and waits for submitted ones to finish.
+     */
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
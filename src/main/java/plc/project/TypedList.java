@@ -0,0 +1,181 @@
+package plc.project;
+
+import java.math.BigInteger;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * A fixed-size list whose elements are stored unboxed in a primitive array.
+ * It behaves as a list of {@link BigInteger}, {@link Boolean} or
+ * {@link Character} values to host code, while {@link #load(int)} and
+ * {@link #store(int, Environment.PlcObject)} let the interpreter read and
+ * write elements without boxing them.
+ */
+abstract class TypedList extends AbstractList<Object> implements RandomAccess {
+
+    /**
+     * Returns an empty list of the given size for elements of the type, or
+     * null if the type has no primitive representation.
+     */
+    static TypedList create(Environment.Type type, int size) {
+        if (type.equals(Environment.Type.INTEGER)) {
+            return new Integers(size);
+        }
+        else if (type.equals(Environment.Type.BOOLEAN)) {
+            return new Booleans(size);
+        }
+        else if (type.equals(Environment.Type.CHARACTER)) {
+            return new Characters(size);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the element at the index, which must be within bounds.
+     */
+    abstract Environment.PlcObject load(int index);
+
+    /**
+     * Replaces the element at the index, which must be within bounds, with
+     * a value of the list's element type.
+     */
+    abstract void store(int index, Environment.PlcObject value);
+
+    /**
+     * Returns the approximate size of the list in bytes.
+     */
+    abstract long bytes();
+
+    @Override
+    public Object set(int index, Object element) {
+        Object previous = get(index);
+        store(index, Environment.create(element));
+        return previous;
+    }
+
+    /**
+     * Integers held as {@code long}, falling back to boxed storage for the
+     * whole list once an element does not fit.
+     */
+    private static final class Integers extends TypedList {
+
+        private final long[] values;
+        private Object[] boxed;
+
+        private Integers(int size) {
+            this.values = new long[size];
+        }
+
+        @Override
+        Environment.PlcObject load(int index) {
+            return boxed == null ? Environment.createInteger(values[index]) : Environment.create(boxed[index]);
+        }
+
+        @Override
+        void store(int index, Environment.PlcObject value) {
+            if (boxed == null && value.isLong()) {
+                values[index] = value.getLong();
+                return;
+            }
+            BigInteger integer = (BigInteger) value.getValue();
+            if (boxed == null && integer.bitLength() < Long.SIZE) {
+                values[index] = integer.longValue();
+                return;
+            }
+            if (boxed == null) {
+                boxed = new Object[values.length];
+                for (int i = 0; i < values.length; i++) {
+                    boxed[i] = BigInteger.valueOf(values[i]);
+                }
+            }
+            boxed[index] = integer;
+        }
+
+        @Override
+        long bytes() {
+            return 16 + 8L * values.length + (boxed == null ? 0 : 16 + 4L * boxed.length);
+        }
+
+        @Override
+        public Object get(int index) {
+            return boxed == null ? BigInteger.valueOf(values[index]) : boxed[index];
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+    }
+
+    private static final class Booleans extends TypedList {
+
+        private final boolean[] values;
+
+        private Booleans(int size) {
+            this.values = new boolean[size];
+        }
+
+        @Override
+        Environment.PlcObject load(int index) {
+            return values[index] ? Environment.TRUE : Environment.FALSE;
+        }
+
+        @Override
+        void store(int index, Environment.PlcObject value) {
+            values[index] = (Boolean) value.getValue();
+        }
+
+        @Override
+        long bytes() {
+            return 16 + values.length;
+        }
+
+        @Override
+        public Object get(int index) {
+            return values[index];
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+    }
+
+    private static final class Characters extends TypedList {
+
+        private final char[] values;
+
+        private Characters(int size) {
+            this.values = new char[size];
+        }
+
+        @Override
+        Environment.PlcObject load(int index) {
+            return Environment.create(values[index]);
+        }
+
+        @Override
+        void store(int index, Environment.PlcObject value) {
+            values[index] = (Character) value.getValue();
+        }
+
+        @Override
+        long bytes() {
+            return 16 + 2L * values.length;
+        }
+
+        @Override
+        public Object get(int index) {
+            return values[index];
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+    }
+
+}
@@ -0,0 +1,318 @@
+package plc.project;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Executes {@link Bytecode}. Each call runs in a fresh register array sized
+ * by its chunk; natives such as {@code print} are {@link Environment.Function}s
+ * looked up in the machine's scope on first call, and host variables are
+ * looked up in it when the bytecode is loaded.
+ */
+public final class VirtualMachine {
+
+    private final Scope scope;
+    private Bytecode.Chunk[] chunks;
+    private Environment.Function[] natives;
+    private Environment.PlcObject[] constants;
+    private Environment.Variable[] globals;
+    private OutputChannel output = OutputChannel.system();
+
+    public VirtualMachine(Scope parent) {
+        scope = new Scope(parent);
+        scope.defineFunction("print", 1, args -> {
+            output.println(args.get(0).getValue());
+            return Environment.NIL;
+        });
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    /**
+     * Sends the output of {@code print} to the channel, which is flushed when
+     * a run finishes. Defaults to {@link OutputChannel#system()}.
+     */
+    public void setOutput(OutputChannel output) {
+        this.output = output;
+    }
+
+    /**
+     * Loads the bytecode into this machine's scope, initializes globals and
+     * returns the result of calling {@code main}.
+     */
+    public Environment.PlcObject run(Bytecode bytecode) {
+        constants = new Environment.PlcObject[bytecode.getConstants().size()];
+        for (int index = 0; index < constants.length; index++) {
+            Object constant = bytecode.getConstants().get(index);
+            constants[index] = constant == null ? Environment.NIL : Environment.create(constant);
+        }
+        globals = new Environment.Variable[bytecode.getGlobals().size()];
+        for (int index = 0; index < globals.length; index++) {
+            Bytecode.Global global = bytecode.getGlobals().get(index);
+            if (global.host()) {
+                globals[index] = scope.lookupVariable(global.name());
+            }
+            else {
+                globals[index] = scope.defineVariable(global.name(), global.name(), Environment.Type.ANY, global.mutable(), Environment.NIL);
+            }
+        }
+        chunks = bytecode.getChunks().toArray(new Bytecode.Chunk[0]);
+        natives = new Environment.Function[chunks.length];
+        for (Bytecode.Chunk chunk : chunks) {
+            if (chunk.code() != null) {
+                scope.defineFunction(chunk.name(), chunk.arity(), args -> {
+                    Environment.PlcObject[] registers = new Environment.PlcObject[chunk.registers()];
+                    for (int index = 0; index < chunk.arity(); index++) {
+                        registers[index] = args.get(index);
+                    }
+                    return execute(chunk, registers);
+                });
+            }
+        }
+
+        try {
+            execute(bytecode.getInitializer(), new Environment.PlcObject[bytecode.getInitializer().registers()]);
+            return scope.lookupFunction("main", 0).invoke(List.of());
+        } finally {
+            output.flush();
+        }
+    }
+
+    private Environment.PlcObject execute(Bytecode.Chunk chunk, Environment.PlcObject[] registers) {
+        int[] code = chunk.code();
+        int pc = 0;
+        while (pc < code.length) {
+            int instruction = code[pc];
+            int a = instruction >>> 8;
+            int b = code[pc + 1];
+            int c = code[pc + 2];
+            pc += 3;
+            switch (instruction & 0xFF) {
+                case Bytecode.CONST:
+                    registers[a] = constants[b];
+                    break;
+                case Bytecode.MOVE:
+                    registers[a] = registers[b];
+                    break;
+                case Bytecode.LOAD_GLOBAL:
+                    registers[a] = globals[b].getValue();
+                    break;
+                case Bytecode.STORE_GLOBAL:
+                    globals[b].setValue(registers[a]);
+                    break;
+                case Bytecode.LOAD_INDEX: {
+                    List<Object> list = list(registers[b]);
+                    registers[a] = Environment.create(list.get(index(registers[c], list.size())));
+                    break;
+                }
+                case Bytecode.STORE_INDEX: {
+                    List<Object> list = list(registers[a]);
+                    list.set(index(registers[b], list.size()), registers[c].getValue());
+                    break;
+                }
+                case Bytecode.ADD:
+                    registers[a] = add(registers[b], registers[c]);
+                    break;
+                case Bytecode.SUB:
+                    registers[a] = subtract(registers[b], registers[c]);
+                    break;
+                case Bytecode.MUL:
+                    registers[a] = multiply(registers[b], registers[c]);
+                    break;
+                case Bytecode.DIV:
+                    registers[a] = divide(registers[b], registers[c]);
+                    break;
+                case Bytecode.POW:
+                    registers[a] = power(registers[b], registers[c]);
+                    break;
+                case Bytecode.LT:
+                    registers[a] = compare(registers[b], registers[c]) < 0 ? Environment.TRUE : Environment.FALSE;
+                    break;
+                case Bytecode.GT:
+                    registers[a] = compare(registers[b], registers[c]) > 0 ? Environment.TRUE : Environment.FALSE;
+                    break;
+                case Bytecode.EQ:
+                    registers[a] = equals(registers[b], registers[c]) ? Environment.TRUE : Environment.FALSE;
+                    break;
+                case Bytecode.NE:
+                    registers[a] = equals(registers[b], registers[c]) ? Environment.FALSE : Environment.TRUE;
+                    break;
+                case Bytecode.TEST:
+                    requireType(Boolean.class, registers[a]);
+                    break;
+                case Bytecode.JUMP:
+                    pc = b;
+                    break;
+                case Bytecode.JUMP_FALSE:
+                    if (!requireType(Boolean.class, registers[a])) {
+                        pc = b;
+                    }
+                    break;
+                case Bytecode.CALL:
+                    registers[a] = call(b, registers, c);
+                    break;
+                case Bytecode.LIST: {
+                    List<Object> list = new ArrayList<>(c);
+                    for (int index = 0; index < c; index++) {
+                        list.add(registers[b + index].getValue());
+                    }
+                    registers[a] = Environment.create(list);
+                    break;
+                }
+                case Bytecode.RETURN:
+                    return registers[a];
+                default:
+                    throw new RuntimeException("Invalid opcode " + (instruction & 0xFF) + ".");
+            }
+        }
+        return Environment.NIL;
+    }
+
+    private Environment.PlcObject call(int slot, Environment.PlcObject[] registers, int base) {
+        Bytecode.Chunk callee = chunks[slot];
+        if (callee.code() != null) {
+            Environment.PlcObject[] frame = new Environment.PlcObject[callee.registers()];
+            System.arraycopy(registers, base, frame, 0, callee.arity());
+            return execute(callee, frame);
+        }
+        Environment.Function function = natives[slot];
+        if (function == null) {
+            function = scope.lookupFunction(callee.name(), callee.arity());
+            natives[slot] = function;
+        }
+        return function.invoke(Arrays.asList(Arrays.copyOfRange(registers, base, base + callee.arity())));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> list(Environment.PlcObject object) {
+        if (!(object.getValue() instanceof List<?> list)) {
+            throw new RuntimeException("error" + object.getValue());
+        }
+        return (List<Object>) list;
+    }
+
+    private static int index(Environment.PlcObject offset, int size) {
+        if (!(offset.getValue() instanceof BigInteger integer)) {
+            throw new RuntimeException("error" + offset.getValue());
+        }
+        int index = integer.intValueExact();
+        if (index >= size || index < 0) {
+            throw new RuntimeException("error" + index);
+        }
+        return index;
+    }
+
+    private static Environment.PlcObject add(Environment.PlcObject left, Environment.PlcObject right) {
+        if (left.isLong() && right.isLong()) {
+            try {
+                return Environment.createInteger(Math.addExact(left.getLong(), right.getLong()));
+            }
+            catch (ArithmeticException e) {
+                // fall back to BigInteger arithmetic on overflow
+            }
+        }
+        if (left.getValue() instanceof String || right.getValue() instanceof String) {
+            return Environment.create(Rope.concat(left, right));
+        }
+        else if (left.getValue() instanceof BigInteger integer) {
+            return Environment.create(integer.add(requireType(BigInteger.class, right)));
+        }
+        return Environment.create(requireType(BigDecimal.class, left).add(requireType(BigDecimal.class, right)));
+    }
+
+    private static Environment.PlcObject subtract(Environment.PlcObject left, Environment.PlcObject right) {
+        if (left.isLong() && right.isLong()) {
+            try {
+                return Environment.createInteger(Math.subtractExact(left.getLong(), right.getLong()));
+            }
+            catch (ArithmeticException e) {
+                // fall back to BigInteger arithmetic on overflow
+            }
+        }
+        if (left.getValue() instanceof BigInteger integer) {
+            return Environment.create(integer.subtract(requireType(BigInteger.class, right)));
+        }
+        return Environment.create(requireType(BigDecimal.class, left).subtract(requireType(BigDecimal.class, right)));
+    }
+
+    private static Environment.PlcObject multiply(Environment.PlcObject left, Environment.PlcObject right) {
+        if (left.isLong() && right.isLong()) {
+            try {
+                return Environment.createInteger(Math.multiplyExact(left.getLong(), right.getLong()));
+            }
+            catch (ArithmeticException e) {
+                // fall back to BigInteger arithmetic on overflow
+            }
+        }
+        if (left.getValue() instanceof BigInteger integer) {
+            return Environment.create(integer.multiply(requireType(BigInteger.class, right)));
+        }
+        return Environment.create(requireType(BigDecimal.class, left).multiply(requireType(BigDecimal.class, right)));
+    }
+
+    private static Environment.PlcObject divide(Environment.PlcObject left, Environment.PlcObject right) {
+        if (right.isLong() ? right.getLong() == 0 : right.getValue().equals(BigDecimal.valueOf(0))) {
+            throw new RuntimeException("error");
+        }
+        else if (left.isLong() && right.isLong() && !(left.getLong() == Long.MIN_VALUE && right.getLong() == -1)) {
+            return Environment.createInteger(left.getLong() / right.getLong());
+        }
+        else if (left.getValue() instanceof BigInteger integer) {
+            return Environment.create(integer.divide(requireType(BigInteger.class, right)));
+        }
+        return Environment.create(requireType(BigDecimal.class, left).divide(requireType(BigDecimal.class, right), RoundingMode.HALF_EVEN));
+    }
+
+    private static Environment.PlcObject power(Environment.PlcObject left, Environment.PlcObject right) {
+        int exponent = requireType(BigInteger.class, right).intValue();
+        if (left.getValue() instanceof BigDecimal decimal) {
+            return Environment.create(decimal.pow(exponent, MathContext.DECIMAL64));
+        }
+        BigInteger base = requireType(BigInteger.class, left);
+        if (left.isLong() && exponent >= 0 && exponent < Long.SIZE) {
+            try {
+                long result = 1;
+                for (int index = 0; index < exponent; index++) {
+                    result = Math.multiplyExact(result, left.getLong());
+                }
+                return Environment.createInteger(result);
+            }
+            catch (ArithmeticException e) {
+                // fall back to BigInteger arithmetic on overflow
+            }
+        }
+        return Environment.create(base.pow(exponent));
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static int compare(Environment.PlcObject left, Environment.PlcObject right) {
+        if (left.isLong() && right.isLong()) {
+            return Long.compare(left.getLong(), right.getLong());
+        }
+        requireType(left.getValue().getClass(), right);
+        return requireType(Comparable.class, left).compareTo(requireType(Comparable.class, right));
+    }
+
+    private static boolean equals(Environment.PlcObject left, Environment.PlcObject right) {
+        if (left.isLong() && right.isLong()) {
+            return left.getLong() == right.getLong();
+        }
+        return Objects.equals(left.getValue(), right.getValue());
+    }
+
+    private static <T> T requireType(Class<T> type, Environment.PlcObject object) {
+        if (type.isInstance(object.getValue())) {
+            return type.cast(object.getValue());
+        } else {
+            throw new RuntimeException("Expected type " + type.getName() + ", received " + object.getValue().getClass().getName() + ".");
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package plc.project;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Runs the benchmark corpus through each execution engine and reports
+ * wall-clock time and bytes allocated per run. Not a JUnit test; run it with
+ * {@code gradle benchmark} or {@code gradle benchmark --args="while"} to
+ * select benchmarks whose name contains the argument.
+ */
+public final class Benchmarks {
+
+    private static final int WARMUP = 5;
+    private static final int RUNS = 10;
+
+    private static final Map<String, String> CORPUS = new LinkedHashMap<>();
+    private static final Map<String, Function<Ast.Source, Environment.PlcObject>> ENGINES = new LinkedHashMap<>();
+
+    static {
+        ENGINES.put("interpreter", ast -> new Interpreter(new Scope(null)).visit(ast));
+        ENGINES.put("budgeted", ast -> {
+            Interpreter interpreter = new Interpreter(new Scope(null));
+            ExecutionBudget budget = new ExecutionBudget();
+            budget.setTimeout(Duration.ofHours(1));
+            interpreter.setBudget(budget);
+            return interpreter.visit(ast);
+        });
+        ENGINES.put("buffered", ast -> {
+            Interpreter interpreter = new Interpreter(new Scope(null));
+            interpreter.setOutput(OutputChannel.buffered(System.out));
+            return interpreter.visit(ast);
+        });
+        ENGINES.put("optimized", ast -> new Interpreter(new Scope(null)).visit(new Optimizer().optimize(ast)));
+        ENGINES.put("closure", ast -> new ClosureCompiler(new Scope(null)).visit(ast).execute(null));
+        ENGINES.put("vm", ast -> new VirtualMachine(new Scope(null)).run(new BytecodeCompiler().compile(ast)));
+        ENGINES.put("jvm", ast -> new JvmCompiler().run(ast));
+
+        CORPUS.put("while-1m", String.join("\n",
+                "FUN main(): Integer DO",
+                "    LET i = 0;",
+                "    LET total = 0;",
+                "    WHILE i < 1000000 DO",
+                "        total = total + i;",
+                "        i = i + 1;",
+                "    END",
+                "    RETURN 0;",
+                "END"
+        ));
+        CORPUS.put("fib-25", String.join("\n",
+                "FUN fib(n: Integer): Integer DO",
+                "    IF n < 2 DO",
+                "        RETURN n;",
+                "    END",
+                "    RETURN fib(n - 1) + fib(n - 2);",
+                "END",
+                "FUN main(): Integer DO",
+                "    RETURN fib(25);",
+                "END"
+        ));
+        CORPUS.put("arithmetic-1m", String.join("\n",
+                "FUN main(): Integer DO",
+                "    LET i = 0;",
+                "    LET total = 0;",
+                "    WHILE i < 1000000 DO",
+                "        total = total + i * i - i / 2;",
+                "        i = i + 1;",
+                "    END",
+                "    RETURN 0;",
+                "END"
+        ));
+        CORPUS.put("calls-200k", String.join("\n",
+                "FUN clamp(x: Integer, limit: Integer): Integer DO",
+                "    IF x > limit DO",
+                "        RETURN limit;",
+                "    END",
+                "    RETURN x;",
+                "END",
+                "FUN main(): Integer DO",
+                "    LET i = 0;",
+                "    LET total = 0;",
+                "    WHILE i < 200000 DO",
+                "        total = total + clamp(i, 1000);",
+                "        i = i + 1;",
+                "    END",
+                "    RETURN 0;",
+                "END"
+        ));
+        CORPUS.put("list-1m", String.join("\n",
+                "LIST cells: Integer = [0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0];",
+                "FUN main(): Integer DO",
+                "    LET i = 0;",
+                "    LET j = 0;",
+                "    WHILE i < 1000000 DO",
+                "        cells[j] = cells[j] + i;",
+                "        j = j + 1;",
+                "        IF j == 16 DO",
+                "            j = 0;",
+                "        END",
+                "        i = i + 1;",
+                "    END",
+                "    RETURN cells[0];",
+                "END"
+        ));
+        CORPUS.put("invariant-1m", String.join("\n",
+                "FUN norm(width: Integer, height: Integer): Integer DO",
+                "    LET i = 0;",
+                "    LET total = 0;",
+                "    WHILE i < width * height DO",
+                "        total = total + (width * width + height * height) - i ^ 2;",
+                "        i = i + 1;",
+                "    END",
+                "    RETURN total;",
+                "END",
+                "FUN main(): Integer DO",
+                "    RETURN norm(1000, 1000);",
+                "END"
+        ));
+        StringBuilder cases = new StringBuilder();
+        for (int value = 0; value < 200; value++) {
+            cases.append("        CASE ").append(value).append(": total = total + ").append(value % 7).append(";\n");
+        }
+        CORPUS.put("switch-200", String.join("\n",
+                "FUN main(): Integer DO",
+                "    LET i = 0;",
+                "    LET total = 0;",
+                "    WHILE i < 100000 DO",
+                "        SWITCH i / 500",
+                cases + "        DEFAULT total = total + 1;",
+                "        END",
+                "        i = i + 1;",
+                "    END",
+                "    RETURN total;",
+                "END"
+        ));
+        CORPUS.put("print-100k", String.join("\n",
+                "FUN main(): Integer DO",
+                "    LET i = 0;",
+                "    WHILE i < 100000 DO",
+                "        print(i);",
+                "        i = i + 1;",
+                "    END",
+                "    RETURN 0;",
+                "END"
+        ));
+        CORPUS.put("concat-1mb", String.join("\n",
+                "FUN main(): Integer DO",
+                "    LET chunk = \"\";",
+                "    LET i = 0;",
+                "    WHILE i < 64 DO",
+                "        chunk = chunk + \"0123456789abcdef\";",
+                "        i = i + 1;",
+                "    END",
+                "    LET text = \"\";",
+                "    i = 0;",
+                "    WHILE i < 1024 DO",
+                "        text = text + chunk;",
+                "        i = i + 1;",
+                "    END",
+                "    RETURN 0;",
+                "END"
+        ));
+    }
+
+    public static void main(String[] args) {
+        String filter = args.length > 0 ? args[0] : "";
+        System.out.printf("%-32s %12s %16s%n", "benchmark", "ms/run", "bytes/run");
+        for (Map.Entry<String, String> benchmark : CORPUS.entrySet()) {
+            Ast.Source ast = new Parser(new Lexer(benchmark.getValue()).lex()).parseSource();
+            new Analyzer(new Scope(null)).visit(ast);
+            for (Map.Entry<String, Function<Ast.Source, Environment.PlcObject>> engine : ENGINES.entrySet()) {
+                String name = benchmark.getKey() + "/" + engine.getKey();
+                if (name.contains(filter)) {
+                    run(name, ast, engine.getValue());
+                }
+            }
+        }
+        if ("executor-10k".contains(filter)) {
+            executor("executor-10k", 10_000);
+        }
+    }
+
+    /**
+     * Submits short scripts to a {@link ScriptExecutor} all at once and reports
+     * throughput and the latency from submission to completion.
+     */
+    private static void executor(String name, int scripts) {
+        PrintStream sysout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        long nanos;
+        long[] latencies = new long[scripts];
+        try (ScriptExecutor executor = new ScriptExecutor(new Scope(null), Runtime.getRuntime().availableProcessors() * 4)) {
+            String[] sources = new String[100];
+            for (int index = 0; index < sources.length; index++) {
+                sources[index] = "VAR limit: Integer = " + (100 + index) + "; FUN main(): Integer DO LET i = 0; WHILE i < limit DO i = i + 1; END RETURN i; END";
+            }
+            for (int round = 0; round < WARMUP; round++) {
+                submit(executor, sources, latencies);
+            }
+            long start = System.nanoTime();
+            submit(executor, sources, latencies);
+            nanos = System.nanoTime() - start;
+        } finally {
+            System.setOut(sysout);
+        }
+        Arrays.sort(latencies);
+        System.out.printf("%-32s %12.0f scripts/s, p50 %.2f ms, p99 %.2f ms%n", name, scripts / (nanos / 1e9),
+                latencies[scripts / 2] / 1e6, latencies[(int) (scripts * 0.99)] / 1e6);
+    }
+
+    private static void submit(ScriptExecutor executor, String[] sources, long[] latencies) {
+        CompletableFuture<?>[] results = new CompletableFuture<?>[latencies.length];
+        for (int index = 0; index < latencies.length; index++) {
+            int script = index;
+            long submitted = System.nanoTime();
+            results[index] = executor.submit(sources[index % sources.length])
+                    .thenRun(() -> latencies[script] = System.nanoTime() - submitted);
+        }
+        CompletableFuture.allOf(results).join();
+    }
+
+    private static void run(String name, Ast.Source ast, Function<Ast.Source, Environment.PlcObject> engine) {
+        PrintStream sysout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        long nanos;
+        long bytes;
+        try {
+            for (int i = 0; i < WARMUP; i++) {
+                engine.apply(ast);
+            }
+            long startBytes = allocatedBytes();
+            long start = System.nanoTime();
+            for (int i = 0; i < RUNS; i++) {
+                engine.apply(ast);
+            }
+            nanos = System.nanoTime() - start;
+            bytes = allocatedBytes() - startBytes;
+        } finally {
+            System.setOut(sysout);
+        }
+        System.out.printf("%-32s %12.2f %16d%n", name, nanos / 1e6 / RUNS, bytes / RUNS);
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+}
@@ -0,0 +1,130 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigInteger;
+import java.util.stream.Stream;
+
+final class ClosureCompilerTests {
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testSource(String test, String input, String expected) {
+        Ast.Source ast = TestSources.analyze(input);
+        Assertions.assertEquals(expected, TestSources.run(ast, TestSources::interpret));
+        Assertions.assertEquals(expected, TestSources.run(ast, TestSources::compileClosures));
+    }
+
+    private static Stream<Arguments> testSource() {
+        return Stream.of(
+                Arguments.of("Hello World",
+                        "FUN main(): Integer DO print(\"Hello, World!\"); RETURN 0; END",
+                        "Hello, World!"
+                ),
+                Arguments.of("Globals",
+                        "VAR count: Integer = 1; VAL step: Integer = 2; FUN main(): Integer DO count = count + step; print(count); RETURN 0; END",
+                        "3"
+                ),
+                Arguments.of("Loop",
+                        "FUN main(): Integer DO LET i = 0; LET total = 0; WHILE i < 10 DO total = total + i * i; i = i + 1; END print(total); RETURN 0; END",
+                        "285"
+                ),
+                Arguments.of("Recursion",
+                        "FUN fib(n: Integer): Integer DO IF n < 2 DO RETURN n; END RETURN fib(n - 1) + fib(n - 2); END FUN main(): Integer DO print(fib(15)); RETURN 0; END",
+                        "610"
+                ),
+                Arguments.of("Return From Loop",
+                        "FUN find(): Integer DO LET i = 0; WHILE TRUE DO IF i * i > 50 DO RETURN i; END i = i + 1; END RETURN 0; END FUN main(): Integer DO print(find()); RETURN 0; END",
+                        "8"
+                ),
+                Arguments.of("Switch",
+                        "FUN name(c: Character): String DO SWITCH c CASE 'a': RETURN \"first\"; CASE 'b': RETURN \"second\"; DEFAULT RETURN \"other\"; END END FUN main(): Integer DO print(name('b') + name('z')); RETURN 0; END",
+                        "secondother"
+                ),
+                Arguments.of("List",
+                        "LIST values: Integer = [1, 2, 3]; FUN main(): Integer DO values[1] = values[0] + values[2]; print(values[1]); RETURN 0; END",
+                        "4"
+                ),
+                Arguments.of("Decimal",
+                        "FUN main(): Integer DO print(1.5 * 2.0 - 0.25 / 0.5); RETURN 0; END",
+                        "2.50"
+                ),
+                Arguments.of("Overflow",
+                        "FUN main(): Integer DO LET x = 2147483647; print(x * x * x); RETURN 0; END",
+                        "9903520300447984150353281023"
+                ),
+                Arguments.of("Short Circuit",
+                        "VAR calls: Integer = 0; FUN touch(): Boolean DO calls = calls + 1; RETURN TRUE; END FUN main(): Integer DO LET a = FALSE && touch(); print(calls); RETURN 0; END",
+                        "0"
+                ),
+                Arguments.of("Comparison",
+                        "FUN main(): Integer DO print(\"abc\" < \"abd\"); print('b' > 'a'); print(1.0 == 1.00); RETURN 0; END",
+                        "true" + System.lineSeparator() + "true" + System.lineSeparator() + "false"
+                ),
+                Arguments.of("Division By Zero",
+                        "FUN main(): Integer DO LET zero = 0; print(1 / zero); RETURN 0; END",
+                        null
+                ),
+                Arguments.of("Index Out Of Bounds",
+                        "LIST values: Integer = [1]; FUN main(): Integer DO print(values[1]); RETURN 0; END",
+                        null
+                )
+        );
+    }
+
+    @Test
+    void testReturnValue() {
+        Ast.Source ast = TestSources.analyze("FUN main(): Integer DO LET x = 6; RETURN x * 7; END");
+        Assertions.assertEquals(BigInteger.valueOf(42), new ClosureCompiler(new Scope(null)).visit(ast).execute(null).getValue());
+    }
+
+    @Test
+    void testTailCall() {
+        Ast.Source ast = TestSources.analyze("FUN count(n: Integer, total: Integer): Integer DO IF n == 0 DO RETURN total; END RETURN count(n - 1, total + n); END FUN main(): Integer DO RETURN count(1000000, 0); END");
+        Assertions.assertEquals(BigInteger.valueOf(500000500000L), new ClosureCompiler(new Scope(null)).visit(ast).execute(null).getValue());
+    }
+
+    @Test
+    void testBudget() {
+        Ast.Source ast = TestSources.analyze("FUN f(): Integer DO RETURN 1; END FUN main(): Integer DO LET i = 0; WHILE i < 10 DO i = i + f(); END RETURN i; END");
+        ClosureCompiler compiler = new ClosureCompiler(new Scope(null));
+        ExecutionBudget budget = new ExecutionBudget();
+        budget.setFuel(21);
+        compiler.setBudget(budget);
+        Assertions.assertEquals(BigInteger.TEN, compiler.visit(ast).execute(null).getValue());
+        Assertions.assertEquals(0, budget.getFuel());
+
+        ClosureCompiler loop = new ClosureCompiler(new Scope(null));
+        ExecutionBudget limited = new ExecutionBudget();
+        limited.setFuel(5000);
+        loop.setBudget(limited);
+        ClosureCompiler.Node program = loop.visit(TestSources.analyze("FUN main(): Integer DO WHILE TRUE DO END RETURN 0; END"));
+        Assertions.assertThrows(ExecutionLimitException.class, () -> program.execute(null));
+
+        // values are credited when overwritten and when their frame returns
+        ClosureCompiler strings = new ClosureCompiler(new Scope(null));
+        ExecutionBudget memory = new ExecutionBudget();
+        memory.setMemory(1 << 12);
+        strings.setBudget(memory);
+        ClosureCompiler.Node labels = strings.visit(TestSources.analyze(String.join("\n",
+                "FUN label(n: Integer): String DO LET prefix = \"item \" + n; RETURN prefix + \"!\"; END",
+                "FUN main(): Integer DO LET text = \"\"; LET i = 0; WHILE i < 100000 DO text = label(i); i = i + 1; END RETURN 0; END"
+        )));
+        Assertions.assertEquals(BigInteger.ZERO, labels.execute(null).getValue());
+        Assertions.assertTrue(memory.getStats().getAllocated() > 1 << 20);
+    }
+
+    @Test
+    void testOutput() {
+        Ast.Source ast = TestSources.analyze("FUN main(): Integer DO print(1); print(\"two\"); RETURN 0; END");
+        ClosureCompiler compiler = new ClosureCompiler(new Scope(null));
+        OutputChannel.Memory output = OutputChannel.memory();
+        compiler.setOutput(output);
+        compiler.visit(ast).execute(null);
+        Assertions.assertEquals("1" + System.lineSeparator() + "two" + System.lineSeparator(), output.getText());
+    }
+}
@@ -0,0 +1,88 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigInteger;
+import java.util.stream.Stream;
+
+final class EffectAnalyzerTests {
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testPurity(String test, String input, String function, boolean expected) {
+        Ast.Source ast = TestSources.analyze(input);
+        Ast.Function declaration = ast.getFunctions().stream().filter(f -> f.getName().equals(function)).findFirst().orElseThrow();
+        Assertions.assertEquals(expected, declaration.isPure());
+    }
+
+    private static Stream<Arguments> testPurity() {
+        return Stream.of(
+                Arguments.of("Arithmetic",
+                        "FUN square(x: Integer): Integer DO RETURN x * x; END FUN main(): Integer DO RETURN square(2); END",
+                        "square", true
+                ),
+                Arguments.of("Local State",
+                        "FUN sum(n: Integer): Integer DO LET total = 0; WHILE n > 0 DO total = total + n; n = n - 1; END RETURN total; END FUN main(): Integer DO RETURN sum(2); END",
+                        "sum", true
+                ),
+                Arguments.of("Immutable Global",
+                        "VAL base: Integer = 10; FUN offset(x: Integer): Integer DO RETURN x + base; END FUN main(): Integer DO RETURN offset(2); END",
+                        "offset", true
+                ),
+                Arguments.of("Print",
+                        "FUN log(x: Integer): Integer DO print(x); RETURN x; END FUN main(): Integer DO RETURN log(2); END",
+                        "log", false
+                ),
+                Arguments.of("Global Assignment",
+                        "VAR count: Integer = 0; FUN next(): Integer DO count = count + 1; RETURN count; END FUN main(): Integer DO RETURN next(); END",
+                        "next", false
+                ),
+                Arguments.of("Mutable Global Read",
+                        "VAR count: Integer = 0; FUN current(): Integer DO RETURN count; END FUN main(): Integer DO RETURN current(); END",
+                        "current", false
+                ),
+                Arguments.of("List Mutation",
+                        "LIST values: Integer = [1, 2]; FUN reset(): Integer DO values[0] = 0; RETURN 0; END FUN main(): Integer DO RETURN reset(); END",
+                        "reset", false
+                ),
+                Arguments.of("Impure Callee",
+                        "FUN log(x: Integer): Integer DO print(x); RETURN x; END FUN twice(x: Integer): Integer DO RETURN log(x) * 2; END FUN main(): Integer DO RETURN twice(2); END",
+                        "twice", false
+                ),
+                Arguments.of("Recursion",
+                        "FUN fib(n: Integer): Integer DO IF n < 2 DO RETURN n; END RETURN fib(n - 1) + fib(n - 2); END FUN main(): Integer DO RETURN fib(2); END",
+                        "fib", true
+                ),
+                Arguments.of("Main",
+                        "FUN main(): Integer DO print(1); RETURN 0; END",
+                        "main", false
+                )
+        );
+    }
+
+    @Test
+    void testHostVariables() {
+        Scope scope = new Scope(null);
+        scope.defineVariable("limit", false, Environment.create(BigInteger.TEN));
+        scope.defineVariable("count", true, Environment.create(BigInteger.ZERO));
+        Ast.Source ast = TestSources.analyze(
+                "FUN bounded(): Integer DO LET x: Any = limit; RETURN 1; END " +
+                "FUN counted(): Integer DO LET x: Any = count; RETURN 1; END " +
+                "FUN main(): Integer DO RETURN bounded() + counted(); END",
+                new Scope(scope));
+        Assertions.assertTrue(ast.getFunctions().get(0).isPure());
+        Assertions.assertFalse(ast.getFunctions().get(1).isPure());
+    }
+
+    @Test
+    void testMemoization() {
+        Ast.Source ast = TestSources.analyze("FUN fib(n: Integer): Integer DO IF n < 2 DO RETURN n; END RETURN fib(n - 1) + fib(n - 2); END FUN main(): Integer DO RETURN fib(90); END");
+        Interpreter interpreter = new Interpreter(new Scope(null));
+        interpreter.setMemoization(1024);
+        Assertions.assertEquals(new BigInteger("2880067194370816120"), interpreter.visit(ast).getValue());
+    }
+}
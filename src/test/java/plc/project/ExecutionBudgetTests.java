@@ -0,0 +1,127 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+final class ExecutionBudgetTests {
+
+    private static final String LOOP = "FUN main(): Integer DO WHILE TRUE DO END RETURN 0; END";
+
+    @Test
+    void testFuel() {
+        ExecutionBudget budget = new ExecutionBudget();
+        budget.setFuel(5000);
+        ExecutionLimitException exception = Assertions.assertThrows(ExecutionLimitException.class, () -> Program.load(LOOP, new Scope(null)).run(budget));
+        Assertions.assertEquals(ExecutionLimitException.Limit.FUEL, exception.getLimit());
+        Assertions.assertEquals(0, budget.getFuel());
+    }
+
+    @Test
+    void testFuelAccounting() {
+        // one unit for main, one per call to f and one per iteration
+        Program program = Program.load("FUN f(): Integer DO RETURN 1; END FUN main(): Integer DO LET i = 0; WHILE i < 10 DO i = i + f(); END RETURN i; END", new Scope(null));
+        ExecutionBudget budget = new ExecutionBudget();
+        budget.setFuel(21);
+        Assertions.assertEquals(BigInteger.TEN, program.run(budget).getValue());
+        Assertions.assertEquals(0, budget.getFuel());
+
+        ExecutionBudget smaller = new ExecutionBudget();
+        smaller.setFuel(20);
+        Assertions.assertThrows(ExecutionLimitException.class, () -> program.run(smaller));
+    }
+
+    @Test
+    void testDeadline() {
+        ExecutionBudget budget = new ExecutionBudget();
+        budget.setTimeout(Duration.ofMillis(50));
+        ExecutionLimitException exception = Assertions.assertThrows(ExecutionLimitException.class, () -> Program.load(LOOP, new Scope(null)).run(budget));
+        Assertions.assertEquals(ExecutionLimitException.Limit.DEADLINE, exception.getLimit());
+    }
+
+    @Test
+    void testCancel() {
+        try (ScriptExecutor executor = new ScriptExecutor(new Scope(null), 1)) {
+            ExecutionBudget budget = new ExecutionBudget();
+            CompletableFuture<Environment.PlcObject> result = executor.submit(executor.load(LOOP), budget);
+            result.cancel(true);
+            Assertions.assertTrue(budget.isCancelled());
+        }
+    }
+
+    @Test
+    void testCancelToken() throws InterruptedException {
+        ExecutionBudget budget = new ExecutionBudget();
+        Program program = Program.load(LOOP, new Scope(null));
+        CompletableFuture<Environment.PlcObject> result = CompletableFuture.supplyAsync(() -> program.run(budget));
+        Thread.sleep(20);
+        budget.cancel();
+        CompletionException exception = Assertions.assertThrows(CompletionException.class, result::join);
+        Assertions.assertEquals(ExecutionLimitException.Limit.CANCELLED, ((ExecutionLimitException) exception.getCause()).getLimit());
+    }
+
+    @Test
+    void testMemory() {
+        Program program = Program.load("FUN main(): Integer DO LET text = \"x\"; WHILE TRUE DO text = text + text; END RETURN 0; END", new Scope(null));
+        ExecutionBudget budget = new ExecutionBudget();
+        budget.setMemory(1 << 20);
+        ExecutionLimitException exception = Assertions.assertThrows(ExecutionLimitException.class, () -> program.run(budget));
+        Assertions.assertEquals(ExecutionLimitException.Limit.MEMORY, exception.getLimit());
+        Assertions.assertTrue(budget.getStats().getPeak() > 1 << 19);
+        Assertions.assertTrue(budget.getStats().getPeak() <= 1 << 20);
+    }
+
+    @Test
+    void testMemoryReleased() {
+        // values that are overwritten or whose frame returns are credited, so
+        // a long run holding little at once stays within a small limit
+        Program program = Program.load(String.join("\n",
+                "VAR text: String = \"\";",
+                "LIST values: Integer = [1, 2, 3];",
+                "FUN label(n: Integer): String DO LET prefix = \"item \" + n; RETURN prefix + \"!\"; END",
+                "FUN main(): Integer DO",
+                "    LET i = 0;",
+                "    WHILE i < 100000 DO text = label(i); values[1] = i * i; i = i + 1; END",
+                "    RETURN 0;",
+                "END"
+        ), new Scope(null));
+        ExecutionBudget budget = new ExecutionBudget();
+        budget.setMemory(1 << 12);
+        Assertions.assertEquals(BigInteger.ZERO, program.run(budget).getValue());
+        ExecutionStats stats = budget.getStats();
+        Assertions.assertTrue(stats.getAllocated() > 1 << 20, stats.toString());
+        Assertions.assertTrue(stats.getPeak() <= 1 << 12, stats.toString());
+    }
+
+    @Test
+    void testMemoryArithmetic() {
+        Program program = Program.load("FUN main(): Integer DO LET x = 3; WHILE TRUE DO x = x * x; END RETURN 0; END", new Scope(null));
+        ExecutionBudget budget = new ExecutionBudget();
+        budget.setMemory(1 << 16);
+        ExecutionLimitException exception = Assertions.assertThrows(ExecutionLimitException.class, () -> program.run(budget));
+        Assertions.assertEquals(ExecutionLimitException.Limit.MEMORY, exception.getLimit());
+
+        Program power = Program.load("FUN main(): Integer DO LET x = 3 ^ 100; RETURN x ^ 100000000 - x; END", new Scope(null));
+        ExecutionBudget reserved = new ExecutionBudget();
+        reserved.setMemory(1 << 20);
+        Assertions.assertThrows(ExecutionLimitException.class, () -> power.run(reserved));
+        Assertions.assertTrue(reserved.getStats().getAllocated() < 1 << 20);
+    }
+
+    @Test
+    void testStats() {
+        Program program = Program.load("LIST values: Integer = [1, 2, 3]; FUN main(): Integer DO LET text = \"ab\" + \"cd\"; RETURN 0; END", new Scope(null));
+        ExecutionBudget budget = new ExecutionBudget();
+        program.run(budget);
+        ExecutionStats stats = budget.getStats();
+        Assertions.assertEquals(1, stats.getFuel());
+        long text = ExecutionBudget.sizeOf(Rope.concat(Environment.create("ab"), Environment.create("cd")));
+        Assertions.assertEquals(ExecutionBudget.sizeOf(TypedList.create(Environment.Type.INTEGER, 3)) + text, stats.getAllocated());
+        Assertions.assertEquals(text, stats.getLargest());
+        Assertions.assertTrue(stats.getPeak() >= ExecutionBudget.sizeOf(TypedList.create(Environment.Type.INTEGER, 3)) + text, stats.toString());
+    }
+}
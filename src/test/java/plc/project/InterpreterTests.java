@@ -12,6 +12,7 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Stream;
 
@@ -311,6 +312,20 @@ final class InterpreterTests {
                         ),
                         BigInteger.valueOf(11)
                 ),
+                Arguments.of("Addition Overflow",
+                        new Ast.Expression.Binary("+",
+                                new Ast.Expression.Literal(BigInteger.valueOf(Long.MAX_VALUE)),
+                                new Ast.Expression.Literal(BigInteger.ONE)
+                        ),
+                        new BigInteger("9223372036854775808")
+                ),
+                Arguments.of("Multiplication Overflow",
+                        new Ast.Expression.Binary("*",
+                                new Ast.Expression.Literal(new BigInteger("4294967296")),
+                                new Ast.Expression.Literal(new BigInteger("-4294967296"))
+                        ),
+                        new BigInteger("-18446744073709551616")
+                ),
                 Arguments.of("Division",
                         new Ast.Expression.Binary("/",
                                 new Ast.Expression.Literal(new BigDecimal("1.2")),
@@ -409,6 +424,120 @@ final class InterpreterTests {
         test(ast, expected, new Scope(null));
     }
 
+    @Test
+    void testCallSiteShadowing() {
+        Scope scope = new Scope(null);
+        scope.defineFunction("value", 0, args -> Environment.create(BigInteger.ONE));
+        Interpreter interpreter = new Interpreter(scope);
+        Ast.Expression.Function ast = new Ast.Expression.Function("value", Arrays.asList());
+        Assertions.assertEquals(BigInteger.ONE, interpreter.visit(ast).getValue());
+        interpreter.getScope().defineFunction("value", 0, args -> Environment.create(BigInteger.TEN));
+        Assertions.assertEquals(BigInteger.TEN, interpreter.visit(ast).getValue());
+        Assertions.assertEquals(BigInteger.ONE, new Interpreter(scope).visit(ast).getValue());
+        long version = Scope.getVersion();
+        new Interpreter(new Scope(null)).getScope().defineFunction("value", 0, args -> Environment.NIL);
+        Assertions.assertTrue(Scope.getVersion() > version);
+        Assertions.assertEquals(BigInteger.TEN, interpreter.visit(ast).getValue());
+    }
+
+    @Test
+    void testTailCall() {
+        Ast.Source ast = new Parser(new Lexer("FUN sum(n: Integer, total: Integer): Integer DO IF n == 0 DO RETURN total; END RETURN sum(n - 1, total + n); END FUN main(): Integer DO RETURN sum(100000, 0); END").lex()).parseSource();
+        new Analyzer(new Scope(null)).visit(ast);
+        Ast.Statement.Return tail = (Ast.Statement.Return) ast.getFunctions().get(0).getStatements().get(1);
+        Assertions.assertTrue(tail.isTail());
+        Assertions.assertEquals(BigInteger.valueOf(5000050000L), new Interpreter(new Scope(null)).visit(ast).getValue());
+    }
+
+    @Test
+    void testTypedList() {
+        Ast.Source ast = new Parser(new Lexer(String.join("\n",
+                "LIST values: Integer = [1, 2, 3];",
+                "LIST flags: Boolean = [TRUE, FALSE];",
+                "LIST letters: Character = ['a', 'b'];",
+                "FUN main(): Integer DO",
+                "    values[1] = values[0] + values[2];",
+                "    flags[1] = flags[0];",
+                "    letters[0] = letters[1];",
+                "    values[2] = 2147483647 * 2147483647 * 4;",
+                "    RETURN values[1];",
+                "END")).lex()).parseSource();
+        new Analyzer(new Scope(null)).visit(ast);
+        Interpreter interpreter = new Interpreter(new Scope(null));
+        Assertions.assertEquals(BigInteger.valueOf(4), interpreter.visit(ast).getValue());
+        Object values = interpreter.getScope().lookupVariable("values").getValue().getValue();
+        Assertions.assertTrue(values instanceof TypedList);
+        Assertions.assertEquals(Arrays.asList(BigInteger.ONE, BigInteger.valueOf(4), new BigInteger("18446744056529682436")), values);
+        Assertions.assertEquals(Arrays.asList(true, true), interpreter.getScope().lookupVariable("flags").getValue().getValue());
+        Assertions.assertEquals(Arrays.asList('b', 'b'), interpreter.getScope().lookupVariable("letters").getValue().getValue());
+    }
+
+    @Test
+    void testStringConcatenation() {
+        Ast.Source ast = new Parser(new Lexer(String.join("\n",
+                "VAR text: String = \"\";",
+                "VAR first: String = \"\";",
+                "VAR second: String = \"\";",
+                "FUN main(): Integer DO",
+                "    LET i = 0;",
+                "    WHILE i < 3 DO",
+                "        text = text + i + 'c' + TRUE;",
+                "        i = i + 1;",
+                "    END",
+                "    first = text + \"!\";",
+                "    second = text + \"?\";",
+                "    text = text + text;",
+                "    print(first + second + text);",
+                "    RETURN 0;",
+                "END")).lex()).parseSource();
+        new Analyzer(new Scope(null)).visit(ast);
+        Interpreter interpreter = new Interpreter(new Scope(null));
+        interpreter.visit(ast);
+        Assertions.assertEquals("0ctrue1ctrue2ctrue0ctrue1ctrue2ctrue", interpreter.getScope().lookupVariable("text").getValue().getValue());
+        Assertions.assertEquals("0ctrue1ctrue2ctrue!", interpreter.getScope().lookupVariable("first").getValue().getValue());
+        Assertions.assertEquals("0ctrue1ctrue2ctrue?", interpreter.getScope().lookupVariable("second").getValue().getValue());
+
+        // the closure and bytecode engines build the same strings
+        String expected = "0ctrue1ctrue2ctrue!0ctrue1ctrue2ctrue?0ctrue1ctrue2ctrue0ctrue1ctrue2ctrue";
+        Assertions.assertEquals(expected, TestSources.run(ast, TestSources::compileClosures));
+        Assertions.assertEquals(expected, TestSources.run(ast, TestSources::runBytecode));
+    }
+
+    @Test
+    void testSwitchTable() {
+        Ast.Source ast = new Parser(new Lexer(String.join("\n",
+                "FUN classify(n: Integer): Integer DO",
+                "    SWITCH n",
+                "        CASE 1: RETURN 10;",
+                "        CASE 2: RETURN 20;",
+                "        CASE 1: RETURN 30;",
+                "        DEFAULT RETURN 0;",
+                "    END",
+                "END",
+                "FUN main(): Integer DO",
+                "    RETURN classify(1) + classify(2) + classify(3);",
+                "END")).lex()).parseSource();
+        new Analyzer(new Scope(null)).visit(ast);
+        Ast.Statement.Switch statement = (Ast.Statement.Switch) ast.getFunctions().get(0).getStatements().get(0);
+        Assertions.assertEquals(Map.of(BigInteger.ONE, 0, BigInteger.TWO, 1), statement.getTable());
+        Assertions.assertEquals(BigInteger.valueOf(30), new Interpreter(new Scope(null)).visit(ast).getValue());
+    }
+
+    @Test
+    void testCanonicalObjects() {
+        Interpreter interpreter = new Interpreter(new Scope(null));
+        Assertions.assertSame(Environment.TRUE, interpreter.visit(new Ast.Expression.Binary("<",
+                new Ast.Expression.Literal(BigInteger.ONE),
+                new Ast.Expression.Literal(BigInteger.TEN)
+        )));
+        Assertions.assertSame(Environment.create(BigInteger.valueOf(11)), interpreter.visit(new Ast.Expression.Binary("+",
+                new Ast.Expression.Literal(BigInteger.ONE),
+                new Ast.Expression.Literal(BigInteger.TEN)
+        )));
+        Assertions.assertSame(Environment.create('a'), Environment.create('a'));
+        Assertions.assertSame(Environment.create(""), Environment.create(""));
+    }
+
     private static Scope test(Ast ast, Object expected, Scope scope) {
         Interpreter interpreter = new Interpreter(scope);
         if (expected != null) {
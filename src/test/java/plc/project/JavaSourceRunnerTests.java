@@ -0,0 +1,67 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+final class JavaSourceRunnerTests {
+
+    private static final String PROGRAM = "VAR x: Integer = 1; FUN square(n: Integer): Integer DO RETURN n * n; END FUN main(): Integer DO print(\"Hello, World!\"); x = square(x + 5); RETURN x; END";
+
+    @Test
+    void testRun() {
+        PrintStream sysout = System.out;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out));
+        try {
+            Assertions.assertEquals(BigInteger.valueOf(36), new JavaSourceRunner(null).run(PROGRAM).getValue());
+        } finally {
+            System.setOut(sysout);
+        }
+        Assertions.assertEquals("Hello, World!", out.toString().trim());
+    }
+
+    @Test
+    void testCache() throws IOException {
+        Path cache = Files.createTempDirectory("syntra");
+        try {
+            Assertions.assertEquals(BigInteger.valueOf(36), new JavaSourceRunner(cache).run(PROGRAM).getValue());
+            List<Path> entries = list(cache);
+            Assertions.assertEquals(1, entries.size());
+            Assertions.assertTrue(Files.exists(entries.get(0).resolve("Main.class")));
+
+            // a cached program is loaded without parsing or compiling it again
+            byte[] replacement = JavaSourceRunner.compile("public class Main { int main() { return 7; } }").get("Main");
+            Files.write(entries.get(0).resolve("Main.class"), replacement);
+            Assertions.assertEquals(BigInteger.valueOf(7), new JavaSourceRunner(cache).run(PROGRAM).getValue());
+            Assertions.assertEquals(entries, list(cache));
+        } finally {
+            try (Stream<Path> files = Files.walk(cache)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testRuntimeError() {
+        Assertions.assertThrows(ArithmeticException.class, () -> new JavaSourceRunner(null).run("FUN main(): Integer DO LET zero = 0; RETURN 1 / zero; END"));
+    }
+
+    private static List<Path> list(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigInteger;
+import java.util.stream.Stream;
+
+final class JvmCompilerTests {
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testSource(String test, String input, String expected) {
+        Assertions.assertEquals(expected, TestSources.capture(TestSources.analyze(input), source -> new JvmCompiler().run(source)));
+    }
+
+    private static Stream<Arguments> testSource() {
+        return Stream.of(
+                Arguments.of("Hello World",
+                        "FUN main(): Integer DO print(\"Hello, World!\"); RETURN 0; END",
+                        "Hello, World!"
+                ),
+                Arguments.of("Globals",
+                        "VAR x: Integer = 1; VAL y: Integer = 10; FUN main(): Integer DO x = x + y; print(x); RETURN 0; END",
+                        "11"
+                ),
+                Arguments.of("Global List",
+                        "LIST values: Integer = [1, 2, 3]; FUN main(): Integer DO values[1] = values[0] + values[2]; print(values[1]); RETURN 0; END",
+                        "4"
+                ),
+                Arguments.of("Arguments",
+                        "FUN scale(x: Decimal, times: Integer): Decimal DO LET result = x; WHILE times > 1 DO result = result + x; times = times - 1; END RETURN result; END FUN main(): Integer DO print(scale(1.5, 3)); RETURN 0; END",
+                        "4.5"
+                ),
+                Arguments.of("If",
+                        "FUN sign(x: Integer): Integer DO IF x < 0 DO RETURN -1; ELSE IF x > 0 DO RETURN 1; END END RETURN 0; END FUN main(): Integer DO print(sign(-5)); print(sign(0)); print(sign(5)); RETURN 0; END",
+                        "-1" + System.lineSeparator() + "0" + System.lineSeparator() + "1"
+                ),
+                Arguments.of("Switch",
+                        "VAR letter: Character = 'y'; FUN main(): Integer DO SWITCH letter CASE 'y': print(\"yes\"); letter = 'n'; DEFAULT print(\"no\"); END print(letter); RETURN 0; END",
+                        "yes" + System.lineSeparator() + "n"
+                ),
+                Arguments.of("Switch String",
+                        "FUN main(): Integer DO LET name = \"b\"; SWITCH name CASE \"a\": print(1); CASE \"b\": print(2); DEFAULT print(0); END RETURN 0; END",
+                        "2"
+                ),
+                Arguments.of("Recursion",
+                        "FUN fib(n: Integer): Integer DO IF n < 2 DO RETURN n; END RETURN fib(n - 1) + fib(n - 2); END FUN main(): Integer DO print(fib(15)); RETURN 0; END",
+                        "610"
+                ),
+                Arguments.of("Binary",
+                        "FUN main(): Integer DO print(1 + 10 * 2); print(2 ^ 10); print(\"a\" + 1 + 'b' + TRUE); print(1.5 / 3.0); print(2.0 ^ 2); RETURN 0; END",
+                        "21" + System.lineSeparator() + "1024" + System.lineSeparator() + "a1btrue" + System.lineSeparator() + "0.5" + System.lineSeparator() + "4.0"
+                ),
+                Arguments.of("Comparison",
+                        "FUN main(): Integer DO print(1 < 10); print(1 == 10); print(\"a\" != \"b\"); print(\"a\" < \"b\"); print('b' > 'a'); print(1.5 < 0.5); RETURN 0; END",
+                        String.join(System.lineSeparator(), "true", "false", "true", "true", "true", "false")
+                ),
+                Arguments.of("And",
+                        "VAR calls: Integer = 0; FUN touch(): Boolean DO calls = calls + 1; RETURN TRUE; END FUN main(): Integer DO print(TRUE && touch()); print(FALSE && touch()); print(calls); RETURN 0; END",
+                        "true" + System.lineSeparator() + "false" + System.lineSeparator() + "1"
+                ),
+                Arguments.of("Overflow",
+                        "FUN main(): Integer DO LET x = 2147483647; print(x + 1); RETURN 0; END",
+                        "-2147483648"
+                ),
+                Arguments.of("Division By Zero",
+                        "FUN main(): Integer DO LET zero = 0; print(1 / zero); RETURN 0; END",
+                        null
+                ),
+                Arguments.of("Index Out Of Bounds",
+                        "LIST values: Integer = [1]; FUN main(): Integer DO print(values[1]); RETURN 0; END",
+                        null
+                )
+        );
+    }
+
+    @Test
+    void testReturnValue() {
+        Ast.Source ast = TestSources.analyze("VAL factor: Integer = 7; FUN main(): Integer DO LET x = 6; RETURN x * factor; END");
+        Assertions.assertEquals(BigInteger.valueOf(42), new JvmCompiler().run(ast).getValue());
+    }
+
+    @Test
+    void testUnsupportedType() {
+        Ast.Source ast = TestSources.analyze("FUN main(): Integer DO print(NIL); RETURN 0; END");
+        Assertions.assertThrows(RuntimeException.class, () -> new JvmCompiler().compile(ast));
+    }
+}
@@ -0,0 +1,203 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+final class OptimizerTests {
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testConstantFolding(String test, String input, Object expected) {
+        Ast.Source ast = new Optimizer().optimize(TestSources.analyze(input));
+        Ast.Statement.Return statement = (Ast.Statement.Return) ast.getFunctions().get(0).getStatements().get(0);
+        if (expected != null) {
+            Assertions.assertEquals(Ast.Expression.Literal.class, statement.getValue().getClass());
+            Assertions.assertEquals(expected, ((Ast.Expression.Literal) statement.getValue()).getLiteral());
+        } else {
+            Assertions.assertNotEquals(Ast.Expression.Literal.class, statement.getValue().getClass());
+        }
+    }
+
+    private static Stream<Arguments> testConstantFolding() {
+        return Stream.of(
+                Arguments.of("Power",
+                        "FUN main(): Integer DO RETURN 2 ^ 10; END",
+                        BigInteger.valueOf(1024)
+                ),
+                Arguments.of("Group",
+                        "FUN main(): Integer DO RETURN (1 + 2) * 3; END",
+                        BigInteger.valueOf(9)
+                ),
+                Arguments.of("Decimal Division",
+                        "FUN value(): Decimal DO RETURN 1.2 / 3.4; END FUN main(): Integer DO value(); RETURN 0; END",
+                        null
+                ),
+                Arguments.of("Decimal Concatenation",
+                        "FUN value(): String DO RETURN \"value \" + 1.50; END FUN main(): Integer DO value(); RETURN 0; END",
+                        null
+                ),
+                Arguments.of("Concatenation",
+                        "FUN value(): String DO RETURN \"prefix\" + \"suffix\"; END FUN main(): Integer DO value(); RETURN 0; END",
+                        "prefixsuffix"
+                ),
+                Arguments.of("Comparison",
+                        "FUN value(): Boolean DO RETURN 1 < 10; END FUN main(): Integer DO value(); RETURN 0; END",
+                        true
+                ),
+                Arguments.of("Short Circuit",
+                        "VAR flag: Boolean = TRUE; FUN value(): Boolean DO RETURN FALSE && flag; END FUN main(): Integer DO value(); RETURN 0; END",
+                        false
+                ),
+                Arguments.of("Immutable Global",
+                        "VAL size: Integer = 2 * 8; FUN main(): Integer DO RETURN size + 1; END",
+                        BigInteger.valueOf(17)
+                ),
+                Arguments.of("Mutable Global",
+                        "VAR size: Integer = 2; FUN main(): Integer DO RETURN size + 1; END",
+                        null
+                ),
+                Arguments.of("Division By Zero",
+                        "FUN main(): Integer DO RETURN 1 / 0; END",
+                        null
+                ),
+                Arguments.of("Integer Overflow",
+                        "FUN main(): Integer DO RETURN 2 ^ 40; END",
+                        null
+                )
+        );
+    }
+
+    @Test
+    void testGeneratedDecimals() {
+        // the generator emits Decimal arithmetic as doubles, so it must see
+        // the operations as written rather than the interpreter's results
+        String input = "FUN main(): Integer DO print(1.0 / 3.0); print(0.1 + 0.2); print(2.0 ^ 3); RETURN 0; END";
+        Assertions.assertEquals(generate(TestSources.analyze(input)), generate(new Optimizer().optimize(TestSources.analyze(input))));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testDeadCode(String test, String input, List<String> expected) {
+        Optimizer optimizer = new Optimizer();
+        optimizer.optimize(TestSources.analyze(input));
+        Assertions.assertEquals(expected, optimizer.getRemoved());
+    }
+
+    private static Stream<Arguments> testDeadCode() {
+        return Stream.of(
+                Arguments.of("Unreachable Function",
+                        "FUN unused(): Integer DO RETURN 1; END FUN main(): Integer DO RETURN 0; END",
+                        Arrays.asList("unreachable function unused/0")
+                ),
+                Arguments.of("Transitive Call",
+                        "FUN helper(): Integer DO RETURN 1; END FUN used(): Integer DO RETURN helper(); END FUN main(): Integer DO RETURN used(); END",
+                        Arrays.asList()
+                ),
+                Arguments.of("Constant If",
+                        "FUN main(): Integer DO IF FALSE DO print(1); END RETURN 0; END",
+                        Arrays.asList("constant IF in main")
+                ),
+                Arguments.of("Constant Switch",
+                        "FUN main(): Integer DO SWITCH 2 CASE 1: print(1); DEFAULT print(2); END RETURN 0; END",
+                        Arrays.asList("constant SWITCH in main")
+                ),
+                Arguments.of("After Return",
+                        "FUN main(): Integer DO RETURN 0; print(1); END",
+                        Arrays.asList("1 statement(s) after RETURN in main")
+                ),
+                Arguments.of("After Terminating If",
+                        "VAR flag: Boolean = TRUE; FUN main(): Integer DO IF flag DO RETURN 1; ELSE RETURN 2; END print(3); END",
+                        Arrays.asList("1 statement(s) after RETURN in main")
+                ),
+                Arguments.of("Call In Dead Branch",
+                        "FUN debug(): Integer DO RETURN 1; END FUN main(): Integer DO IF FALSE DO debug(); END RETURN 0; END",
+                        Arrays.asList("constant IF in main", "unreachable function debug/0")
+                )
+        );
+    }
+
+    @Test
+    void testLoopOptimization() {
+        Ast.Source input = TestSources.analyze("FUN main(): Integer DO LET n = 10; LET i = 0; WHILE i < n * 2 DO i = i + n * 2 + i ^ 2; END RETURN i; END");
+        Ast.Expression invariant = ((Ast.Expression.Binary) ((Ast.Statement.While) input.getFunctions().get(0).getStatements().get(2)).getCondition()).getRight();
+        Ast.Function function = ((Ast.Source) new LoopOptimizer().visit(input)).getFunctions().get(0);
+
+        Ast.Statement.Declaration hoisted = (Ast.Statement.Declaration) function.getStatements().get(2);
+        Ast.Statement.While loop = (Ast.Statement.While) function.getStatements().get(3);
+        Assertions.assertEquals(invariant, hoisted.getValue().get());
+        Assertions.assertEquals(3, function.getFrameSize());
+        Assertions.assertSame(hoisted.getVariable(), ((Ast.Expression.Access) ((Ast.Expression.Binary) loop.getCondition()).getRight()).getVariable());
+
+        Ast.Expression.Binary value = (Ast.Expression.Binary) ((Ast.Statement.Assignment) loop.getStatements().get(0)).getValue();
+        Assertions.assertEquals("*", ((Ast.Expression.Binary) value.getRight()).getOperator());
+    }
+
+    @Test
+    void testDeadLoopNotHoisted() {
+        Ast.Source input = TestSources.analyze("FUN main(): Integer DO LET n = 10; LET i = 0; WHILE FALSE DO i = i + n * 2; END RETURN i; print(n * 3); WHILE i < n * 4 DO i = i + 1; END END");
+        Ast.Function function = new Optimizer().optimize(input).getFunctions().get(0);
+        Assertions.assertEquals(3, function.getStatements().size());
+        Assertions.assertEquals(2, function.getFrameSize());
+    }
+
+    @Test
+    void testSquareOutsideLoop() {
+        Ast.Source input = TestSources.analyze("FUN main(): Integer DO LET x = 3; RETURN x ^ 2; END");
+        Ast.Function function = ((Ast.Source) new LoopOptimizer().visit(input)).getFunctions().get(0);
+        Ast.Statement.Return statement = (Ast.Statement.Return) function.getStatements().get(1);
+        Assertions.assertEquals("^", ((Ast.Expression.Binary) statement.getValue()).getOperator());
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testInterpreter(String test, String input, String expected) {
+        Ast.Source ast = TestSources.analyze(input);
+        Assertions.assertEquals(expected, TestSources.run(ast, TestSources::interpret));
+        Assertions.assertEquals(expected, TestSources.run(new Optimizer().optimize(ast), TestSources::interpret));
+    }
+
+    private static Stream<Arguments> testInterpreter() {
+        return Stream.of(
+                Arguments.of("Loop",
+                        "VAL limit: Integer = 2 ^ 3; VAR total: Integer = 0; FUN main(): Integer DO LET i = 0; WHILE i < limit DO total = total + (limit - 1) * 2; i = i + 1; END print(total); RETURN 0; END",
+                        "112"
+                ),
+                Arguments.of("Division By Zero",
+                        "VAL zero: Integer = 0; FUN main(): Integer DO print(1 / zero); RETURN 0; END",
+                        null
+                ),
+                Arguments.of("Loop Invariant",
+                        "FUN sum(n: Integer, scale: Integer): Integer DO LET total = 0; LET i = 0; WHILE i < n - 1 DO LET j = 0; WHILE j < n DO total = total + (scale * scale + 1) * j + i; j = j + 1; END i = i + 1; END RETURN total; END FUN main(): Integer DO print(sum(5, 3)); RETURN 0; END",
+                        "430"
+                ),
+                Arguments.of("Uninitialized Local",
+                        "FUN main(): Integer DO LET x: Integer; LET i = 0; WHILE i < 0 DO print(x + 1); i = i + 1; END print(i); RETURN 0; END",
+                        "0"
+                ),
+                Arguments.of("Square",
+                        "FUN main(): Integer DO LET x = 2147483647; LET i = 0; WHILE i < 2 DO x = x ^ 2; i = i + 1; END print(x); RETURN 0; END",
+                        "21267647892944572736998860269687930881"
+                ),
+                Arguments.of("Constant Branches",
+                        "VAL debug: Boolean = FALSE; FUN main(): Integer DO IF debug DO print(0); ELSE LET x = 1; print(x); END SWITCH 'b' CASE 'a': print(2); CASE 'b': print(3); DEFAULT print(4); END RETURN 0; print(5); END",
+                        "1" + System.lineSeparator() + "3"
+                )
+        );
+    }
+
+    private static String generate(Ast.Source ast) {
+        StringWriter writer = new StringWriter();
+        new Generator(new PrintWriter(writer)).visit(ast);
+        return writer.toString();
+    }
+}
@@ -0,0 +1,51 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+final class OutputChannelTests {
+
+    private static final String SOURCE = "FUN main(): Integer DO LET i = 0; WHILE i < 3 DO print(i); i = i + 1; END print(\"done\"); RETURN i; END";
+    private static final String EXPECTED = String.join(System.lineSeparator(), "0", "1", "2", "done", "");
+
+    @Test
+    void testMemory() {
+        OutputChannel.Memory output = OutputChannel.memory();
+        Program.load(SOURCE, new Scope(null)).run(null, output);
+        Assertions.assertEquals(EXPECTED, output.getText());
+    }
+
+    @Test
+    void testBuffered() {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        OutputChannel output = OutputChannel.buffered(stream);
+        output.println("buffered");
+        Assertions.assertEquals(0, stream.size());
+        output.flush();
+        Assertions.assertEquals("buffered" + System.lineSeparator(), stream.toString());
+
+        stream.reset();
+        Program.load(SOURCE, new Scope(null)).run(null, output);
+        Assertions.assertEquals(EXPECTED, stream.toString());
+    }
+
+    @Test
+    void testFile() throws IOException {
+        Path file = Files.createTempFile("syntra", ".out");
+        try {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                Program.load(SOURCE, new Scope(null)).run(null, OutputChannel.file(channel));
+            }
+            Assertions.assertEquals(EXPECTED, Files.readString(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.stream.Collectors;
+
+final class ProfilingInterpreterTests {
+
+    private static final String SOURCE = String.join("\n",
+            "FUN fib(n: Integer): Integer DO IF n < 2 DO RETURN n; END RETURN fib(n - 1) + fib(n - 2); END",
+            "FUN work(): Integer DO LET i = 0; WHILE i < 10 DO i = i + 1; END RETURN i; END",
+            "FUN main(): Integer DO LET total = fib(10) + work(); WHILE total > 0 DO total = total - work(); END RETURN total; END"
+    );
+
+    @Test
+    void testFunctions() {
+        Profile profile = profile();
+        Assertions.assertEquals(177, entry(profile.getFunctions(), "fib/1").getCount());
+        Assertions.assertEquals(8, entry(profile.getFunctions(), "work/0").getCount());
+        Assertions.assertEquals(1, entry(profile.getFunctions(), "main/0").getCount());
+        Profile.Entry main = entry(profile.getFunctions(), "main/0");
+        Profile.Entry fib = entry(profile.getFunctions(), "fib/1");
+        Assertions.assertTrue(fib.getTotalNanos() <= main.getTotalNanos());
+        Assertions.assertTrue(fib.getSelfNanos() <= fib.getTotalNanos());
+    }
+
+    @Test
+    void testOverloads() {
+        Ast.Source ast = TestSources.analyze(String.join("\n",
+                "FUN f(): Integer DO RETURN 1; END",
+                "FUN f(x: Integer): Integer DO RETURN x + f(); END",
+                "FUN main(): Integer DO RETURN f(f()); END"
+        ));
+        ProfilingInterpreter interpreter = new ProfilingInterpreter(new Scope(null));
+        Assertions.assertEquals(Environment.create(BigInteger.valueOf(2)), interpreter.visit(ast));
+        Profile profile = interpreter.getProfile();
+        Assertions.assertEquals(2, entry(profile.getFunctions(), "f/0").getCount());
+        Assertions.assertEquals(1, entry(profile.getFunctions(), "f/1").getCount());
+        Assertions.assertEquals(List.of("f/1:f/0#1", "main/0:f/0#2", "main/0:f/1#1"), names(profile.getCallSites()));
+    }
+
+    @Test
+    void testLoopsAndCallSites() {
+        Profile profile = profile();
+        Assertions.assertEquals(List.of("main/0:while#1", "work/0:while#1"), names(profile.getLoops()));
+        Assertions.assertEquals(8, entry(profile.getLoops(), "work/0:while#1").getCount());
+        Assertions.assertEquals(List.of("fib/1:fib/1#1", "fib/1:fib/1#2", "main/0:fib/1#1", "main/0:work/0#2", "main/0:work/0#3"), names(profile.getCallSites()));
+        Assertions.assertEquals(88, entry(profile.getCallSites(), "fib/1:fib/1#1").getCount());
+        Assertions.assertEquals(7, entry(profile.getCallSites(), "main/0:work/0#3").getCount());
+        Profile.Entry site = entry(profile.getCallSites(), "main/0:fib/1#1");
+        Assertions.assertTrue(entry(profile.getCallSites(), "fib/1:fib/1#1").getTotalNanos() <= site.getTotalNanos());
+    }
+
+    @Test
+    void testFolded() {
+        String folded = profile().toFolded();
+        for (String line : folded.split("\n")) {
+            Assertions.assertTrue(line.matches("main/0(;[\\w/:#]+)* \\d+"), line);
+        }
+        Assertions.assertTrue(folded.contains("main/0;main/0:while#1;work/0;work/0:while#1 "), folded);
+        Assertions.assertTrue(folded.contains("main/0;fib/1;fib/1;fib/1 "), folded);
+    }
+
+    @Test
+    void testSummary() {
+        String summary = profile().toSummary(2);
+        String[] lines = summary.split(System.lineSeparator());
+        Assertions.assertEquals(3, lines.length, summary);
+        Assertions.assertTrue(lines[0].startsWith("function"), summary);
+    }
+
+    private static Profile profile() {
+        Ast.Source ast = new Parser(new Lexer(SOURCE).lex()).parseSource();
+        new Analyzer(new Scope(null)).visit(ast);
+        ProfilingInterpreter interpreter = new ProfilingInterpreter(new Scope(null));
+        Assertions.assertEquals(Environment.create(BigInteger.valueOf(-5)), interpreter.visit(ast));
+        return interpreter.getProfile();
+    }
+
+    private static Profile.Entry entry(List<Profile.Entry> entries, String name) {
+        return entries.stream().filter(entry -> entry.getName().equals(name)).findFirst()
+                .orElseThrow(() -> new AssertionError("Missing entry " + name + "."));
+    }
+
+    private static List<String> names(List<Profile.Entry> entries) {
+        return entries.stream().map(Profile.Entry::getName).sorted().collect(Collectors.toList());
+    }
+
+}
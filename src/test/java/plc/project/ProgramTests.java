@@ -0,0 +1,60 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+final class ProgramTests {
+
+    private static final String SOURCE = String.join("\n",
+            "VAR calls: Integer = 0;",
+            "LIST memo: Integer = [0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0];",
+            "FUN fib(n: Integer): Integer DO",
+            "    calls = calls + 1;",
+            "    IF n < 2 DO RETURN n; END",
+            "    IF memo[n] == 0 DO memo[n] = fib(n - 1) + fib(n - 2); END",
+            "    RETURN memo[n];",
+            "END",
+            "FUN main(): Integer DO",
+            "    LET result = fib(20);",
+            "    RETURN result + calls;",
+            "END"
+    );
+
+    @Test
+    void testRun() {
+        Program program = Program.load(SOURCE, new Scope(null));
+        Assertions.assertEquals(BigInteger.valueOf(6765 + 39), program.run().getValue());
+        Assertions.assertEquals(BigInteger.valueOf(6765 + 39), program.run().getValue());
+    }
+
+    @Test
+    void testCall() {
+        Program program = Program.load(SOURCE, new Scope(null));
+        Assertions.assertEquals(BigInteger.valueOf(55), program.call("fib", List.of(Environment.create(BigInteger.TEN))).getValue());
+    }
+
+    @Test
+    void testConcurrentRuns() throws InterruptedException, ExecutionException {
+        Program program = Program.load(SOURCE, new Scope(null));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Environment.PlcObject>> results = new ArrayList<>();
+            for (int index = 0; index < 200; index++) {
+                results.add(executor.submit(index % 2 == 0 ? () -> program.run() : () -> program.call("fib", List.of(Environment.create(BigInteger.valueOf(15))))));
+            }
+            for (int index = 0; index < results.size(); index++) {
+                Assertions.assertEquals(BigInteger.valueOf(index % 2 == 0 ? 6765 + 39 : 610), results.get(index).get().getValue());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+final class ScriptExecutorTests {
+
+    @Test
+    void testSubmit() {
+        try (ScriptExecutor executor = new ScriptExecutor(new Scope(null), 4)) {
+            List<CompletableFuture<Environment.PlcObject>> results = new ArrayList<>();
+            for (int index = 0; index < 1000; index++) {
+                results.add(executor.submit("VAR total: Integer = " + index % 10 + "; FUN main(): Integer DO total = total + 1; RETURN total; END"));
+            }
+            for (int index = 0; index < results.size(); index++) {
+                Assertions.assertEquals(BigInteger.valueOf(index % 10 + 1), results.get(index).join().getValue());
+            }
+        }
+    }
+
+    @Test
+    void testCache() {
+        try (ScriptExecutor executor = new ScriptExecutor(new Scope(null), 1)) {
+            String source = "FUN square(x: Integer): Integer DO RETURN x * x; END FUN main(): Integer DO RETURN square(3); END";
+            Program program = executor.load(source);
+            Assertions.assertSame(program, executor.load(source));
+            Assertions.assertEquals(BigInteger.valueOf(16), executor.call(program, "square", List.of(Environment.create(BigInteger.valueOf(4)))).join().getValue());
+        }
+    }
+
+    @Test
+    void testCacheCapacity() {
+        try (ScriptExecutor executor = new ScriptExecutor(new Scope(null), 1, 2)) {
+            String first = "FUN main(): Integer DO RETURN 1; END";
+            String second = "FUN main(): Integer DO RETURN 2; END";
+            Program program = executor.load(first);
+            Program evicted = executor.load(second);
+            Assertions.assertSame(program, executor.load(first));
+            // the least recently used source is the one evicted
+            executor.load("FUN main(): Integer DO RETURN 3; END");
+            Assertions.assertSame(program, executor.load(first));
+            Assertions.assertNotSame(evicted, executor.load(second));
+        }
+    }
+
+    @Test
+    void testConcurrencyLimit() {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        Scope scope = new Scope(null);
+        scope.defineFunction("work", 0, args -> {
+            peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            active.decrementAndGet();
+            return Environment.NIL;
+        });
+        try (ScriptExecutor executor = new ScriptExecutor(scope, 3)) {
+            Program program = executor.load("FUN main(): Integer DO work(); RETURN 0; END");
+            List<CompletableFuture<Environment.PlcObject>> results = new ArrayList<>();
+            for (int index = 0; index < 100; index++) {
+                results.add(executor.submit(program));
+            }
+            results.forEach(CompletableFuture::join);
+        }
+        Assertions.assertTrue(peak.get() <= 3, "peak " + peak.get());
+    }
+
+    @Test
+    void testFailure() {
+        try (ScriptExecutor executor = new ScriptExecutor(new Scope(null), 1)) {
+            CompletableFuture<Environment.PlcObject> result = executor.submit("FUN main(): Integer DO LET zero = 0; RETURN 1 / zero; END");
+            Assertions.assertThrows(CompletionException.class, result::join);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package plc.project;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Fixtures shared by the tests that run whole sources through an engine.
+ */
+final class TestSources {
+
+    private TestSources() {}
+
+    static Ast.Source analyze(String input) {
+        return analyze(input, new Scope(null));
+    }
+
+    static Ast.Source analyze(String input, Scope scope) {
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        new Analyzer(scope).visit(ast);
+        return ast;
+    }
+
+    /**
+     * Runs the source through an engine that prints to the given
+     * {@link OutputChannel}, returning the trimmed output or null if the
+     * engine threw.
+     */
+    static String run(Ast.Source ast, BiFunction<Ast.Source, OutputChannel, Environment.PlcObject> engine) {
+        OutputChannel.Memory output = OutputChannel.memory();
+        try {
+            engine.apply(ast, output);
+            return output.getText().trim();
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Runs the source as {@link #run(Ast.Source, BiFunction)} through an
+     * engine that prints to {@link System#out}, which is replaced while it
+     * runs. Calls are serialized, since the stream is global.
+     */
+    static synchronized String capture(Ast.Source ast, Function<Ast.Source, Environment.PlcObject> engine) {
+        PrintStream sysout = System.out;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out));
+        try {
+            engine.apply(ast);
+            return out.toString().trim();
+        } catch (RuntimeException e) {
+            return null;
+        } finally {
+            System.setOut(sysout);
+        }
+    }
+
+    static Environment.PlcObject interpret(Ast.Source ast, OutputChannel output) {
+        Interpreter interpreter = new Interpreter(new Scope(null));
+        interpreter.setOutput(output);
+        return interpreter.visit(ast);
+    }
+
+    static Environment.PlcObject compileClosures(Ast.Source ast, OutputChannel output) {
+        ClosureCompiler compiler = new ClosureCompiler(new Scope(null));
+        compiler.setOutput(output);
+        return compiler.visit(ast).execute(null);
+    }
+
+    static Environment.PlcObject runBytecode(Ast.Source ast, OutputChannel output) {
+        VirtualMachine machine = new VirtualMachine(new Scope(null));
+        machine.setOutput(output);
+        return machine.run(new BytecodeCompiler().compile(ast));
+    }
+}
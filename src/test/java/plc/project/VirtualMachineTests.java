@@ -0,0 +1,196 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+final class VirtualMachineTests {
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testSource(String test, String input, String expected) {
+        Ast.Source ast = TestSources.analyze(input);
+        Assertions.assertEquals(expected, TestSources.run(ast, TestSources::interpret));
+        Assertions.assertEquals(expected, TestSources.run(ast, TestSources::runBytecode));
+    }
+
+    /**
+     * Runs the source scenarios of the other engines and the optimizer,
+     * checking that the machine prints what the interpreter prints.
+     */
+    @ParameterizedTest(name = "{0}")
+    @MethodSource({"plc.project.ClosureCompilerTests#testSource", "plc.project.JvmCompilerTests#testSource", "plc.project.OptimizerTests#testInterpreter"})
+    void testScenarios(String test, String input) {
+        Ast.Source ast = TestSources.analyze(input);
+        Assertions.assertEquals(TestSources.run(ast, TestSources::interpret), TestSources.run(ast, TestSources::runBytecode));
+    }
+
+    /**
+     * Runs the expression scenarios of the interpreter as the argument of a
+     * print, checking that the machine prints what the interpreter prints.
+     * Scenarios the Analyzer rejects, such as literals wider than 32 bits or
+     * undefined variables, are skipped.
+     */
+    @ParameterizedTest(name = "{0}")
+    @MethodSource({
+            "plc.project.InterpreterTests#testLiteralExpression",
+            "plc.project.InterpreterTests#testGroupExpression",
+            "plc.project.InterpreterTests#testBinaryExpression",
+            "plc.project.InterpreterTests#testAccessExpression",
+            "plc.project.InterpreterTests#testFunctionExpression"
+    })
+    void testExpressionScenarios(String test, Ast.Expression expression) {
+        Ast.Source ast = new Ast.Source(
+                Arrays.asList(),
+                Arrays.asList(new Ast.Function("main", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                        new Ast.Statement.Expression(new Ast.Expression.Function("print", Arrays.asList(expression))),
+                        new Ast.Statement.Return(new Ast.Expression.Literal(BigInteger.ZERO))
+                )))
+        );
+        try {
+            new Analyzer(new Scope(host())).visit(ast);
+        } catch (RuntimeException e) {
+            return;
+        }
+        String interpreted = TestSources.run(ast, (source, output) -> {
+            Interpreter interpreter = new Interpreter(host());
+            interpreter.setOutput(output);
+            return interpreter.visit(source);
+        });
+        String executed = TestSources.run(ast, (source, output) -> {
+            VirtualMachine machine = new VirtualMachine(host());
+            machine.setOutput(output);
+            return machine.run(new BytecodeCompiler().compile(source));
+        });
+        Assertions.assertNotNull(interpreted);
+        Assertions.assertEquals(interpreted, executed);
+    }
+
+    @Test
+    void testHostVariables() throws IOException {
+        Scope scope = new Scope(null);
+        scope.defineVariable("limit", "limit", Environment.Type.INTEGER, false, Environment.create(BigInteger.TEN));
+        scope.defineVariable("count", "count", Environment.Type.INTEGER, true, Environment.create(BigInteger.ONE));
+        Ast.Source ast = TestSources.analyze("FUN main(): Integer DO count = count + limit; RETURN count; END", new Scope(scope));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new BytecodeCompiler().compile(ast).write(out);
+        Bytecode bytecode = Bytecode.read(new ByteArrayInputStream(out.toByteArray()));
+        Assertions.assertEquals(BigInteger.valueOf(11), new VirtualMachine(scope).run(bytecode).getValue());
+        Assertions.assertEquals(BigInteger.valueOf(11), scope.lookupVariable("count").getValue().getValue());
+
+        Ast.Source immutable = TestSources.analyze("FUN main(): Integer DO LET x: Integer = limit; RETURN 0; END", new Scope(scope));
+        Bytecode missing = new BytecodeCompiler().compile(immutable);
+        RuntimeException exception = Assertions.assertThrows(RuntimeException.class, () -> new VirtualMachine(new Scope(null)).run(missing));
+        Assertions.assertEquals("The variable limit is not defined in this scope.", exception.getMessage());
+    }
+
+    private static Stream<Arguments> testSource() {
+        return Stream.of(
+                Arguments.of("Hello World",
+                        "FUN main(): Integer DO print(\"Hello, World!\"); RETURN 0; END",
+                        "Hello, World!"
+                ),
+                Arguments.of("Globals",
+                        "VAR x: Integer = 1; VAL y: Integer = 10; FUN main(): Integer DO x = x + y; print(x); RETURN 0; END",
+                        "11"
+                ),
+                Arguments.of("Global List",
+                        "LIST values: Integer = [1, 2, 3]; FUN main(): Integer DO values[1] = values[0] + values[2]; print(values[1]); RETURN 0; END",
+                        "4"
+                ),
+                Arguments.of("Arguments",
+                        "FUN square(x: Integer): Integer DO RETURN x * x; END FUN main(): Integer DO print(square(10)); RETURN 0; END",
+                        "100"
+                ),
+                Arguments.of("Declaration",
+                        "FUN main(): Integer DO LET name: Integer; print(name); LET other = 1; print(other); RETURN 0; END",
+                        "nil" + System.lineSeparator() + "1"
+                ),
+                Arguments.of("If",
+                        "FUN sign(x: Integer): Integer DO IF x < 0 DO RETURN -1; ELSE IF x > 0 DO RETURN 1; END END RETURN 0; END FUN main(): Integer DO print(sign(-5)); print(sign(0)); print(sign(5)); RETURN 0; END",
+                        "-1" + System.lineSeparator() + "0" + System.lineSeparator() + "1"
+                ),
+                Arguments.of("Switch",
+                        "VAR letter: Character = 'y'; FUN main(): Integer DO SWITCH letter CASE 'y': print(\"yes\"); letter = 'n'; DEFAULT print(\"no\"); END print(letter); RETURN 0; END",
+                        "yes" + System.lineSeparator() + "n"
+                ),
+                Arguments.of("Switch Default",
+                        "FUN main(): Integer DO SWITCH 3 CASE 1: print(1); CASE 2: print(2); DEFAULT print(0); END RETURN 0; END",
+                        "0"
+                ),
+                Arguments.of("While",
+                        "FUN main(): Integer DO LET num = 0; WHILE num < 10 DO num = num + 1; END print(num); RETURN 0; END",
+                        "10"
+                ),
+                Arguments.of("Recursion",
+                        "FUN fib(n: Integer): Integer DO IF n < 2 DO RETURN n; END RETURN fib(n - 1) + fib(n - 2); END FUN main(): Integer DO print(fib(15)); RETURN 0; END",
+                        "610"
+                ),
+                Arguments.of("Binary",
+                        "FUN main(): Integer DO print(1 + 10 * 2); print(2 ^ 10); print(\"a\" + 1); print(1.2 / 3.4); print(2.0 ^ 2); RETURN 0; END",
+                        "21" + System.lineSeparator() + "1024" + System.lineSeparator() + "a1" + System.lineSeparator() + "0.4" + System.lineSeparator() + "4.00"
+                ),
+                Arguments.of("Comparison",
+                        "FUN main(): Integer DO print(1 < 10); print(1 == 10); print(\"a\" != \"b\"); print('b' > 'a'); RETURN 0; END",
+                        "true" + System.lineSeparator() + "false" + System.lineSeparator() + "true" + System.lineSeparator() + "true"
+                ),
+                Arguments.of("And",
+                        "VAR calls: Integer = 0; FUN touch(): Boolean DO calls = calls + 1; RETURN TRUE; END FUN main(): Integer DO print(TRUE && touch()); print(FALSE && touch()); print(calls); RETURN 0; END",
+                        "true" + System.lineSeparator() + "false" + System.lineSeparator() + "1"
+                ),
+                Arguments.of("Overflow",
+                        "FUN main(): Integer DO LET x = 2147483647; print(x * x * x); print(2 ^ 64); RETURN 0; END",
+                        "9903520300447984150353281023" + System.lineSeparator() + "18446744073709551616"
+                ),
+                Arguments.of("Division By Zero",
+                        "FUN main(): Integer DO LET zero = 0; print(1 / zero); RETURN 0; END",
+                        null
+                ),
+                Arguments.of("Index Out Of Bounds",
+                        "LIST values: Integer = [1]; FUN main(): Integer DO print(values[1]); RETURN 0; END",
+                        null
+                )
+        );
+    }
+
+    @Test
+    void testReturnValue() {
+        Ast.Source ast = TestSources.analyze("FUN main(): Integer DO LET x = 6; RETURN x * 7; END");
+        VirtualMachine machine = new VirtualMachine(new Scope(null));
+        Assertions.assertEquals(BigInteger.valueOf(42), machine.run(new BytecodeCompiler().compile(ast)).getValue());
+        Assertions.assertNotNull(machine.getScope().lookupFunction("main", 0));
+    }
+
+    @Test
+    void testSerialization() throws IOException {
+        Ast.Source ast = TestSources.analyze("VAL greeting: String = \"hello\"; VAL accent: String = \"\u00e9\"; LIST values: Decimal = [1.50, 2.25]; FUN main(): Integer DO print(greeting + values[0] + 'c' + TRUE + NIL); RETURN 1234567 / 1000; END");
+        Bytecode original = new BytecodeCompiler().compile(ast);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        original.write(out);
+        Bytecode bytecode = Bytecode.read(new ByteArrayInputStream(out.toByteArray()));
+        Assertions.assertEquals(original.getConstants(), bytecode.getConstants());
+        Assertions.assertEquals("hello1.50ctruenil", TestSources.run(ast, (source, output) -> {
+            VirtualMachine machine = new VirtualMachine(new Scope(null));
+            machine.setOutput(output);
+            return machine.run(bytecode);
+        }));
+        Assertions.assertEquals(BigInteger.valueOf(1234), new VirtualMachine(new Scope(null)).run(bytecode).getValue());
+    }
+
+    private static Scope host() {
+        Scope scope = new Scope(null);
+        scope.defineVariable("variable", true, Environment.create("variable"));
+        scope.defineFunction("function", 0, args -> Environment.create("function"));
+        return scope;
+    }
+}